@@ -0,0 +1,134 @@
+package mylex;
+
+import mylex.LexAnalyzer.LexAnalyzer;
+import mylex.LexAnalyzer.MappedFileReader;
+import mylex.LexAnalyzer.Tokenizer;
+import mylex.vo.CorpusResult;
+import mylex.vo.FileTokens;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 对一批源文件并发地切分Token，.l文件中的Pattern只编译一次，编译得到的词法分析器被所有文件共享
+ * 每个文件是一个任务，提交到可配置的线程池上执行，默认使用工作窃取线程池；
+ * 运行在Java 21及以上时也可以传入虚拟线程的线程池
+ */
+public class CorpusTokenizer {
+
+    /**
+     * 所有文件共享的词法分析器
+     */
+    private Tokenizer tokenizer;
+
+    /**
+     * 执行切分任务的线程池
+     */
+    private ExecutorService executor;
+
+    /**
+     * 根据Pattern编译词法分析器，使用工作窃取线程池切分文件
+     *
+     * @param patterns 解析.l文件后的所有模式
+     */
+    public CorpusTokenizer(List<Pattern> patterns) {
+        this(new LexAnalyzer().createTokenizer(patterns), Executors.newWorkStealingPool());
+    }
+
+    /**
+     * @param tokenizer 编译好的词法分析器，需要能在多个线程中同时使用
+     * @param executor  执行切分任务的线程池
+     */
+    public CorpusTokenizer(Tokenizer tokenizer, ExecutorService executor) {
+        this.tokenizer = tokenizer;
+        this.executor = executor;
+    }
+
+    /**
+     * 并发切分所有文件
+     *
+     * @param files   需要切分的文件
+     * @param charset 文件的字符集
+     * @return 每个文件的切分结果，顺序与files相同，以及整体的吞吐量
+     */
+    public CorpusResult tokenize(List<Path> files, Charset charset) throws IOException, InterruptedException {
+        long begin = System.nanoTime();
+
+        List<Future<FileTokens>> futures = new ArrayList<>();
+        for (Path file : files) {
+            futures.add(executor.submit(() -> tokenizeFile(file, charset)));
+        }
+
+        //按文件的顺序收集结果
+        List<FileTokens> results = new ArrayList<>();
+        for (Future<FileTokens> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                for (Future<FileTokens> other : futures) {
+                    other.cancel(true);
+                }
+                Throwable cause = e.getCause();
+                if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(cause);
+            }
+        }
+
+        return new CorpusResult(results, System.nanoTime() - begin);
+    }
+
+    /**
+     * 并发切分root目录下所有与glob匹配的文件，glob相对于root匹配，例如"**.java"
+     *
+     * @param root    根目录
+     * @param glob    文件名的glob模式
+     * @param charset 文件的字符集
+     * @return 每个文件的切分结果，文件按路径排序，以及整体的吞吐量
+     */
+    public CorpusResult tokenize(Path root, String glob, Charset charset) throws IOException, InterruptedException {
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(root)) {
+            files = paths.filter(Files::isRegularFile)
+                    .filter(path -> matcher.matches(root.relativize(path)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        return tokenize(files, charset);
+    }
+
+    /**
+     * 关闭线程池
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 切分一个文件
+     */
+    private FileTokens tokenizeFile(Path file, Charset charset) {
+        List<Token> tokens = new ArrayList<>();
+        //字符数按从文件中实际读出的字符计算，包括被跳过的词素
+        try (MappedFileReader reader = new MappedFileReader(file, charset)) {
+            tokenizer.tokenize(reader, tokens::add);
+            return new FileTokens(file, tokens, reader.getCharCount());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
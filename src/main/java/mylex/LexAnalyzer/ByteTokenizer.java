@@ -0,0 +1,151 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.ByteTransitionTable;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Token;
+import mylex.vo.TokenTypeTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 直接在UTF-8编码的字节上按最长匹配切分Token的词法分析器，不需要将字节解码为字符
+ * 支持byte[]、堆内ByteBuffer和直接ByteBuffer（包括内存映射的文件）
+ * Token的位置以字节为单位，词素在调用Token.getValue时才被解码
+ * 转换表不可变，同一个词法分析器可以在多个线程中同时使用
+ */
+public class ByteTokenizer {
+
+    private final ByteTransitionTable table;
+
+    /**
+     * Token类型表，创建的Token由类型编号从表中查出名字
+     */
+    private final TokenTypeTable typeTable;
+
+    /**
+     * 错误恢复模式下记录无法匹配的输入，为null时遇到无法匹配的输入即停止切分
+     */
+    private final ScanErrors errors;
+
+    /**
+     * @param table 字符级的转换表，构造时展开为字节级的转换表
+     */
+    public ByteTokenizer(TransitionTable table) {
+        this(new ByteTransitionTable(table), null);
+    }
+
+    public ByteTokenizer(ByteTransitionTable table) {
+        this(table, null);
+    }
+
+    /**
+     * @param table  字节级的转换表
+     * @param errors 不为null时进入错误恢复模式：连续无法匹配的字节作为一个名为ERROR的Token输出，
+     *               从下一个能匹配的位置继续切分，错误的个数和字节位置记录在errors中
+     */
+    public ByteTokenizer(ByteTransitionTable table, ScanErrors errors) {
+        this.table = table;
+        this.errors = errors;
+        typeTable = table.getTypeTable();
+    }
+
+    /**
+     * 切分UTF-8编码的字节数组
+     *
+     * @param input UTF-8编码的输入
+     * @return Token序列，位置为字节位置
+     */
+    public List<Token> getTokens(byte[] input) {
+        return getTokens(ByteBuffer.wrap(input));
+    }
+
+    /**
+     * 切分缓冲区中position到limit之间的UTF-8编码的字节，不改变缓冲区的position
+     * Token会引用该缓冲区以便延迟解码词素，在使用完Token之前不应修改缓冲区的内容
+     *
+     * @param input UTF-8编码的输入
+     * @return Token序列，位置为相对于position的字节位置
+     */
+    public List<Token> getTokens(ByteBuffer input) {
+        final int[] transitions = table.getTransitions();
+        final int[] acceptPatterns = table.getAcceptPatterns();
+        final boolean[] skipPatterns = table.getSkipPatterns();
+        final int begin = input.position();
+        final int limit = input.limit();
+        Utf8Source source = new Utf8Source(input, begin, limit - begin);
+
+        List<Token> tokens = new ArrayList<>();
+        int lexemeBegin = begin;
+        int errorBegin = -1;
+        while (lexemeBegin < limit) {
+            int state = 0;
+            int lastPattern = TransitionTable.NO_PATTERN;
+            int lastEnd = -1;
+            for (int forward = lexemeBegin; forward < limit; forward++) {
+                state = transitions[state * ByteTransitionTable.COLUMN_COUNT + (input.get(forward) & 0xFF)];
+                if (state == TransitionTable.DEAD_STATE) break;
+                int pattern = acceptPatterns[state];
+                if (pattern != TransitionTable.NO_PATTERN) {
+                    lastPattern = pattern;
+                    lastEnd = forward + 1;
+                }
+            }
+
+            if (lastEnd < 0) {
+                assert errors != null : ": " + source.subSequence(lexemeBegin - begin, limit - begin) + "无法解析";
+                if (errors == null) break;
+                //错误恢复：跳过一个字节，直到某个位置重新能够匹配
+                if (errorBegin < 0) errorBegin = lexemeBegin;
+                lexemeBegin++;
+                continue;
+            }
+            if (errorBegin >= 0) {
+                addError(tokens, source, errorBegin - begin, lexemeBegin - begin);
+                errorBegin = -1;
+            }
+
+            if (!skipPatterns[lastPattern]) {
+                tokens.add(new Token(typeTable, lastPattern, source, lexemeBegin - begin, lastEnd - begin));
+            }
+            lexemeBegin = lastEnd;
+        }
+        if (errorBegin >= 0) addError(tokens, source, errorBegin - begin, limit - begin);
+        return tokens;
+    }
+
+    /**
+     * 把一段连续无法匹配的字节作为ERROR Token加入Token序列，并记录在errors中
+     */
+    private void addError(List<Token> tokens, Utf8Source source, int errorBegin, int errorEnd) {
+        errors.record(errorBegin, errorEnd);
+        tokens.add(new Token(typeTable, TransitionTable.NO_PATTERN, source, errorBegin, errorEnd));
+    }
+
+    /**
+     * 将UTF-8编码的文件映射到内存后直接切分，文件不能超过2G
+     * Token的位置为缓冲区中的int下标，故不对更大的文件分段映射；更大的文件使用Tokenizer.tokenize(Path, Charset, Consumer)
+     *
+     * @param file 文件路径
+     * @return Token序列，位置为字节位置
+     * @throws IOException 读取失败，或文件超过Integer.MAX_VALUE个字节
+     */
+    public List<Token> getTokens(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(file + "的大小为" + size + "字节，超过了一次映射的上限" + Integer.MAX_VALUE + "字节");
+            }
+            return getTokens(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public ByteTransitionTable getTable() {
+        return table;
+    }
+}
@@ -0,0 +1,227 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Token;
+import mylex.vo.TokenTypeTable;
+
+/**
+ * 在转换表上对内存中的字符序列按最长匹配逐个切分Token，Token只记录词素在输入中的位置
+ */
+class CharSequenceScanner implements TokenScanner {
+
+    private final CharSequence input;
+
+    private final int[] charClasses;
+
+    private final int classCount;
+
+    private final int[] transitions;
+
+    private final int[] acceptPatterns;
+
+    /**
+     * 每个Pattern匹配到的词素是否被跳过
+     */
+    private final boolean[] skipPatterns;
+
+    /**
+     * Token类型表，创建的Token由类型编号从表中查出名字
+     */
+    private final TokenTypeTable typeTable;
+
+    /**
+     * 扫描过程的跟踪者，没有时为null
+     */
+    private final ScanListener listener;
+
+    /**
+     * 运行时指标，没有时为null
+     */
+    private final TokenizerMetrics metrics;
+
+    /**
+     * 错误恢复模式下记录无法匹配的输入，为null时不进行错误恢复
+     */
+    private final ScanErrors errors;
+
+    /**
+     * 下一个词素的开始位置
+     */
+    private int lexemeBegin;
+
+    /**
+     * 最近一次longestMatch匹配到的Pattern编号，子类重写longestMatch时需要设置
+     */
+    int matchedPattern;
+
+    /**
+     * 最近一次longestMatch中DFA到达死状态前读入字符的结束位置，子类重写longestMatch时需要设置
+     */
+    int scanEnd;
+
+    CharSequenceScanner(TransitionTable table, CharSequence input, ScanListener listener, TokenizerMetrics metrics,
+                        ScanErrors errors) {
+        this.input = input;
+        typeTable = table.getTypeTable();
+        this.listener = listener;
+        this.metrics = metrics;
+        this.errors = errors;
+        charClasses = table.getCharClasses();
+        classCount = table.getClassCount();
+        transitions = table.getTransitions();
+        acceptPatterns = table.getAcceptPatterns();
+        skipPatterns = table.getSkipPatterns();
+
+        lexemeBegin = 0;
+        matchedPattern = TransitionTable.NO_PATTERN;
+    }
+
+    /**
+     * 按最长匹配扫描下一个Token，被跳过的词素只移动扫描位置，不创建Token
+     */
+    @Override
+    public Token nextToken() {
+        final int length = input.length();
+        int lexemeBegin = this.lexemeBegin;
+        while (lexemeBegin < length) {
+            int lexemeEnd = longestMatch(lexemeBegin);
+            if (lexemeEnd < 0 && errors != null) return recover(lexemeBegin);
+
+            assert lexemeEnd >= 0 : ": " + input.subSequence(lexemeBegin, length) + "无法解析";
+            if (lexemeEnd < 0) break;
+
+            this.lexemeBegin = lexemeEnd;
+            if (metrics != null) metrics.recordToken(matchedPattern, lexemeEnd - lexemeBegin, scanEnd - lexemeEnd);
+            if (!skipPatterns[matchedPattern]) return createToken(lexemeBegin, lexemeEnd);
+            lexemeBegin = lexemeEnd;
+        }
+        this.lexemeBegin = length;
+        return null;
+    }
+
+    /**
+     * 错误恢复：把从errorBegin开始的连续无法匹配的字符作为一个ERROR Token，从下一个能匹配的位置继续扫描
+     */
+    private Token recover(int errorBegin) {
+        final int length = input.length();
+        int errorEnd = errorBegin + 1;
+        while (errorEnd < length && longestMatch(errorEnd) < 0) {
+            errorEnd++;
+        }
+
+        errors.record(errorBegin, errorEnd);
+        lexemeBegin = errorEnd;
+        return new Token(typeTable, TransitionTable.NO_PATTERN, input, errorBegin, errorEnd);
+    }
+
+    /**
+     * 从lexemeBegin开始按最长匹配找到一个词素，匹配到的Pattern编号可以通过getMatchedPattern获取
+     *
+     * @param lexemeBegin 词素的开始位置
+     * @return 词素的结束位置（不包含），没有任何Pattern能匹配时返回-1
+     */
+    int longestMatch(int lexemeBegin) {
+        if (listener != null) return longestMatchTraced(lexemeBegin);
+
+        final CharSequence input = this.input;
+        final int[] charClasses = this.charClasses;
+        final int[] transitions = this.transitions;
+        final int[] acceptPatterns = this.acceptPatterns;
+        final int classCount = this.classCount;
+        final int length = input.length();
+
+        int state = 0;
+        //最后一次经过的接受状态所接受的Pattern编号，以及对应词素的结束位置
+        int lastPattern = TransitionTable.NO_PATTERN;
+        int lastEnd = -1;
+
+        int forward = lexemeBegin;
+        for (; forward < length; forward++) {
+            char c = input.charAt(forward);
+            int charClass = c < charClasses.length ? charClasses[c] : 0;
+            state = transitions[state * classCount + charClass];
+            if (state == TransitionTable.DEAD_STATE) break;
+            int pattern = acceptPatterns[state];
+            if (pattern != TransitionTable.NO_PATTERN) {
+                lastPattern = pattern;
+                lastEnd = forward + 1;
+            }
+        }
+
+        matchedPattern = lastPattern;
+        scanEnd = forward;
+        return lastEnd;
+    }
+
+    /**
+     * 与longestMatch相同，同时把每一次转换、经过的接受状态和回退通知给listener
+     */
+    private int longestMatchTraced(int lexemeBegin) {
+        final int length = input.length();
+
+        int state = 0;
+        int lastPattern = TransitionTable.NO_PATTERN;
+        int lastEnd = -1;
+        int forward = lexemeBegin;
+
+        while (forward < length) {
+            char c = input.charAt(forward);
+            int charClass = c < charClasses.length ? charClasses[c] : 0;
+            int nextState = transitions[state * classCount + charClass];
+            listener.transition(state, c, nextState, forward);
+            if (nextState == TransitionTable.DEAD_STATE) break;
+            forward++;
+            state = nextState;
+            int pattern = acceptPatterns[state];
+            if (pattern != TransitionTable.NO_PATTERN) {
+                lastPattern = pattern;
+                lastEnd = forward;
+                listener.accept(state, pattern, lastEnd);
+            }
+        }
+        if (lastEnd >= 0 && forward > lastEnd) listener.backtrack(forward, lastEnd);
+
+        matchedPattern = lastPattern;
+        scanEnd = forward;
+        return lastEnd;
+    }
+
+    /**
+     * 下一次调用nextToken时开始扫描的位置
+     */
+    int getPosition() {
+        return lexemeBegin;
+    }
+
+    /**
+     * 设置下一次调用nextToken时开始扫描的位置，该位置应是一个词素或一段无法匹配的输入的开头
+     */
+    void seek(int position) {
+        lexemeBegin = position;
+    }
+
+    /**
+     * 最近一次longestMatch中DFA到达死状态前读入字符的结束位置，该位置上的字符也被读入过
+     */
+    int getScanEnd() {
+        return scanEnd;
+    }
+
+    /**
+     * 最近一次匹配到的词素是否应被跳过
+     */
+    boolean isSkipped() {
+        return skipPatterns[matchedPattern];
+    }
+
+    /**
+     * 根据最近一次匹配到的Pattern创建Token
+     *
+     * @param lexemeBegin 词素的开始位置
+     * @param lexemeEnd   词素的结束位置（不包含）
+     * @return 只记录词素位置的Token
+     */
+    Token createToken(int lexemeBegin, int lexemeEnd) {
+        return new Token(typeTable, matchedPattern, input, lexemeBegin, lexemeEnd);
+    }
+}
@@ -0,0 +1,349 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.TextEdit;
+import mylex.vo.Token;
+import mylex.vo.TokenDelta;
+import mylex.vo.TokenTypeTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 基于转换表的词法分析器，扫描时只访问基本类型数组，每读入一个字符只做一次数组查找
+ * 转换表不可变，同一个词法分析器可以在多个线程中同时使用，每次扫描的状态保存在各自的扫描器中
+ */
+public class CompiledTokenizer extends Tokenizer {
+
+    /**
+     * 流式读取时默认的缓冲区大小
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * 编译后的转换表
+     */
+    private final TransitionTable table;
+
+    /**
+     * 扫描过程的跟踪者，没有时为null，此时扫描器不执行任何跟踪代码
+     */
+    private final ScanListener listener;
+
+    /**
+     * 运行时指标，为null时不统计
+     */
+    private final TokenizerMetrics metrics;
+
+    /**
+     * 错误恢复模式下记录无法匹配的输入，为null时遇到无法匹配的输入即停止切分
+     */
+    private final ScanErrors errors;
+
+    public CompiledTokenizer(TransitionTable table) {
+        this(table, null, null, null);
+    }
+
+    /**
+     * @param table    编译后的转换表
+     * @param listener 扫描过程的跟踪者，用于调试；为null时不跟踪
+     */
+    public CompiledTokenizer(TransitionTable table, ScanListener listener) {
+        this(table, listener, null, null);
+    }
+
+    /**
+     * @param table    编译后的转换表
+     * @param listener 扫描过程的跟踪者，用于调试；为null时不跟踪
+     * @param metrics  运行时指标，每切分出一个Token累加一次；为null时不统计
+     */
+    public CompiledTokenizer(TransitionTable table, ScanListener listener, TokenizerMetrics metrics) {
+        this(table, listener, metrics, null);
+    }
+
+    /**
+     * @param table    编译后的转换表
+     * @param listener 扫描过程的跟踪者，用于调试；为null时不跟踪
+     * @param metrics  运行时指标，每切分出一个Token累加一次；为null时不统计
+     * @param errors   不为null时进入错误恢复模式：连续无法匹配的字符作为一个名为ERROR的Token输出，
+     *                 从下一个能匹配的位置继续切分，错误的个数和位置记录在errors中
+     */
+    public CompiledTokenizer(TransitionTable table, ScanListener listener, TokenizerMetrics metrics, ScanErrors errors) {
+        this.table = table;
+        this.listener = listener;
+        this.metrics = metrics;
+        this.errors = errors;
+    }
+
+    /**
+     * 根据用户输入的字符串，按最长匹配获取其中所有的Token
+     *
+     * @return 字符流中的Token序列
+     */
+    @Override
+    public List<Token> getTokens(String input) {
+        return getTokens((CharSequence) input);
+    }
+
+    /**
+     * 按最长匹配获取输入中所有的Token，Token只记录Pattern编号和词素在输入中的位置，
+     * 词素在调用Token.getValue时才从输入中截取
+     *
+     * @param input 输入的字符序列
+     * @return 字符流中的Token序列
+     */
+    public List<Token> getTokens(CharSequence input) {
+        CharSequenceScanner scanner = newScanner(input);
+        List<Token> tokens = new ArrayList<>();
+        Token token;
+        while ((token = scanner.nextToken()) != null) {
+            tokens.add(token);
+        }
+        return tokens;
+    }
+
+    /**
+     * 按需切分输入中的Token，每次调用next只扫描到下一个Token为止
+     *
+     * @param input 输入的字符序列
+     * @return Token迭代器
+     */
+    @Override
+    public TokenStream tokenStream(CharSequence input) {
+        return new TokenStream(newScanner(input));
+    }
+
+    /**
+     * 通过固定大小的缓冲区从字符流中按需读取输入并切分Token，每次调用next只读取到下一个Token为止
+     *
+     * @param reader 输入的字符流
+     * @return Token迭代器
+     */
+    @Override
+    public TokenStream tokenStream(Reader reader) {
+        return tokenStream(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * 通过固定大小的缓冲区从字符流中按需读取输入并切分Token
+     *
+     * @param reader     输入的字符流
+     * @param bufferSize 缓冲区大小，词素长于缓冲区时缓冲区会扩大
+     * @return Token迭代器
+     */
+    public TokenStream tokenStream(Reader reader, int bufferSize) {
+        return new TokenStream(new ReaderScanner(table, reader, bufferSize, listener, metrics, errors));
+    }
+
+    /**
+     * 从字符流中通过固定大小的缓冲区流式读取输入，每切分出一个Token就交给handler处理，
+     * 不需要将全部输入读入内存
+     *
+     * @param reader  输入的字符流
+     * @param handler Token的处理者
+     */
+    @Override
+    public void tokenize(Reader reader, Consumer<Token> handler) throws IOException {
+        tokenize(reader, DEFAULT_BUFFER_SIZE, handler);
+    }
+
+    /**
+     * 从字符流中通过固定大小的缓冲区流式读取输入，每切分出一个Token就交给handler处理
+     *
+     * @param reader     输入的字符流
+     * @param bufferSize 缓冲区大小，词素长于缓冲区时缓冲区会扩大
+     * @param handler    Token的处理者
+     */
+    public void tokenize(Reader reader, int bufferSize, Consumer<Token> handler) throws IOException {
+        ReaderScanner scanner = new ReaderScanner(table, reader, bufferSize, listener, metrics, errors);
+        Token token;
+        while ((token = scanner.nextToken()) != null) {
+            handler.accept(token);
+        }
+    }
+
+    /**
+     * 输入被修改后增量地重新切分Token
+     * 从修改位置之前最近的可靠边界开始重新扫描：若从某个位置开始的扫描在读到修改位置之前DFA就到达了死状态，
+     * 它的结果不受修改影响；从修改位置向前找到最早的扫描会读入修改区域的位置，其前面结束的Token都可以保留；
+     * 重新扫描到修改区域之后，一旦新的Token边界与原Token边界（移动delta后）重合，后面的Token必然与原来相同，扫描结束
+     * 扫描的字符数与修改的大小和最长的向前查看距离成正比，与输入的长度无关
+     * 被跳过的词素不在Token序列中，重新扫描从可靠Token的结束位置开始，其后被跳过的词素也会被重新扫描
+     * 修改后的输入在某个位置无法匹配时，与完整扫描一样：错误恢复模式下生成ERROR Token，否则该位置之后没有Token
+     * 错误恢复模式下errors随之更新为修改后输入中的错误：移除被替换的原Token中的错误，修改位置之后的错误位置随修改移动，
+     * 再记录新Token中的错误；重新扫描后与原Token对齐的部分不重复记录
+     *
+     * @param oldTokens 修改前输入的Token序列，按位置递增
+     * @param newInput  修改后的输入
+     * @param edit      对输入的修改
+     * @return 需要替换的Token区间和新的Token
+     */
+    public TokenDelta retokenize(List<Token> oldTokens, CharSequence newInput, TextEdit edit) {
+        final int editBegin = edit.getOffset();
+        final int delta = edit.getDelta();
+
+        //保留结束位置不超过最早受影响的扫描开始位置的Token，与修改区域接触的Token一定被替换
+        int affectedBegin = earliestAffectedScan(newInput, editBegin);
+        int firstIndex = Math.min(firstTokenEndingAfter(oldTokens, affectedBegin),
+                firstTokenEndingAtOrAfter(oldTokens, editBegin));
+        int position = firstIndex == 0 ? 0 : (int) oldTokens.get(firstIndex - 1).getEnd();
+
+        //原Token序列中修改区域之后的第一个Token
+        final int editEndInOld = editBegin + edit.getRemovedLength();
+        final int editEndInNew = editBegin + edit.getInsertedText().length();
+        int oldIndex = firstTokenBeginningAtOrAfter(oldTokens, editEndInOld);
+
+        //重新扫描，直到新的Token与原Token（移动delta后）从同一位置开始；错误恢复模式下无法匹配的输入同样生成ERROR Token
+        //重新扫描的范围可能越过修改区域，先不记录错误，确定替换的Token之后再更新errors
+        CharSequenceScanner scanner = newScanner(newInput, errors == null ? null : new ScanErrors(0));
+        scanner.seek(position);
+        List<Token> insertedTokens = new ArrayList<>();
+        boolean aligned = false;
+        Token token;
+        while ((token = scanner.nextToken()) != null) {
+            if (token.getOffset() >= editEndInNew) {
+                long oldOffset = token.getOffset() - delta;
+                while (oldIndex < oldTokens.size() && oldTokens.get(oldIndex).getOffset() < oldOffset) {
+                    oldIndex++;
+                }
+                if (oldIndex < oldTokens.size() && oldTokens.get(oldIndex).getOffset() == oldOffset) {
+                    aligned = true;
+                    break;
+                }
+            }
+            insertedTokens.add(token);
+        }
+        //没有重新对齐（扫描到输入末尾或无法匹配）时，替换其后所有的原Token
+        if (!aligned) oldIndex = oldTokens.size();
+
+        if (errors != null) {
+            for (Token removed : oldTokens.subList(firstIndex, oldIndex)) {
+                if (removed.isError()) errors.remove(removed.getOffset(), removed.getEnd());
+            }
+            errors.shift(editEndInOld, delta);
+            for (Token inserted : insertedTokens) {
+                if (inserted.isError()) errors.record(inserted.getOffset(), inserted.getEnd());
+            }
+        }
+
+        return new TokenDelta(firstIndex, oldIndex - firstIndex, insertedTokens, delta);
+    }
+
+    /**
+     * 找到最早的、从该位置开始的扫描会读入修改区域的位置
+     * 记alive(p)为从位置p读到修改位置之前都不会到达死状态的DFA状态集合，alive(editBegin)为所有状态，
+     * 向前每移动一个字符，alive(p) = {q | move(q, input[p])属于alive(p + 1)}；
+     * 开始状态属于alive(p)时，从p开始的扫描会读入修改区域；alive(p)为空时更早开始的扫描都在p之前停止，查找结束
+     * 每向前一个字符需要检查所有状态，检查的字符数即最长的可能越过修改位置的扫描距离
+     *
+     * @param newInput  修改后的输入，修改位置之前与原输入相同
+     * @param editBegin 修改位置
+     * @return 最早受影响的扫描开始位置，没有则返回editBegin
+     */
+    private int earliestAffectedScan(CharSequence newInput, int editBegin) {
+        final int[] charClasses = table.getCharClasses();
+        final int[] transitions = table.getTransitions();
+        final int classCount = table.getClassCount();
+        final int stateCount = table.getStateCount();
+
+        boolean[] alive = new boolean[stateCount];
+        boolean[] previous = new boolean[stateCount];
+        Arrays.fill(alive, true);
+        int earliest = editBegin;
+        for (int p = Math.min(editBegin, newInput.length()) - 1; p >= 0; p--) {
+            char c = newInput.charAt(p);
+            int charClass = c < charClasses.length ? charClasses[c] : 0;
+            boolean anyAlive = false;
+            for (int state = 0; state < stateCount; state++) {
+                int nextState = transitions[state * classCount + charClass];
+                previous[state] = nextState != TransitionTable.DEAD_STATE && alive[nextState];
+                anyAlive |= previous[state];
+            }
+            if (!anyAlive) break;
+
+            boolean[] swap = alive;
+            alive = previous;
+            previous = swap;
+            if (alive[0]) earliest = p;
+        }
+        return earliest;
+    }
+
+    /**
+     * 二分查找第一个结束位置大于position的Token
+     */
+    private int firstTokenEndingAfter(List<Token> tokens, long position) {
+        return firstTokenEndingAtOrAfter(tokens, position + 1);
+    }
+
+    /**
+     * 二分查找第一个结束位置不小于position的Token
+     */
+    private int firstTokenEndingAtOrAfter(List<Token> tokens, long position) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).getEnd() < position) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * 二分查找第一个开始位置不小于position的Token
+     */
+    private int firstTokenBeginningAtOrAfter(List<Token> tokens, long position) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (tokens.get(mid).getOffset() < position) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * 创建在内存中的字符序列上扫描的扫描器
+     */
+    CharSequenceScanner newScanner(CharSequence input) {
+        return newScanner(input, errors);
+    }
+
+    /**
+     * 创建在内存中的字符序列上扫描的扫描器
+     *
+     * @param errors 扫描器记录错误的位置，为null时不进行错误恢复
+     */
+    CharSequenceScanner newScanner(CharSequence input, ScanErrors errors) {
+        return new CharSequenceScanner(table, input, listener, metrics, errors);
+    }
+
+    public TransitionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Token类型表，切分出的Token的getPatternID即表中的类型编号
+     */
+    public TokenTypeTable getTypeTable() {
+        return table.getTypeTable();
+    }
+
+    public ScanListener getListener() {
+        return listener;
+    }
+
+    public TokenizerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public ScanErrors getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,18 @@
+package mylex.LexAnalyzer;
+
+/**
+ * 在运行时根据转换表生成的最长匹配代码，由ScannerClassGenerator生成字节码并加载
+ */
+interface DFAMatcher {
+
+    /**
+     * 从lexemeBegin开始按最长匹配找到一个词素
+     *
+     * @param input       输入的字符序列
+     * @param lexemeBegin 词素的开始位置
+     * @param charClasses 字符到列的映射
+     * @param scanEnd     返回时scanEnd[0]为DFA到达死状态前读入字符的结束位置
+     * @return 高32位为匹配到的Pattern编号，低32位为词素的结束位置（不包含）；没有匹配时两者均为-1
+     */
+    long match(CharSequence input, int lexemeBegin, int[] charClasses, int[] scanEnd);
+}
@@ -0,0 +1,41 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+
+/**
+ * 使用运行时生成的DFAMatcher进行最长匹配的扫描器
+ * 有ScanListener时生成的代码无法通知每一次转换，改用转换表扫描
+ */
+class GeneratedScanner extends CharSequenceScanner {
+
+    private final DFAMatcher matcher;
+
+    private final CharSequence input;
+
+    private final int[] charClasses;
+
+    private final boolean traced;
+
+    /**
+     * 接收DFAMatcher返回的scanEnd
+     */
+    private final int[] matchEnd = new int[1];
+
+    GeneratedScanner(TransitionTable table, CharSequence input, DFAMatcher matcher, ScanListener listener,
+                     TokenizerMetrics metrics, ScanErrors errors) {
+        super(table, input, listener, metrics, errors);
+        this.matcher = matcher;
+        this.input = input;
+        charClasses = table.getCharClasses();
+        traced = listener != null;
+    }
+
+    @Override
+    int longestMatch(int lexemeBegin) {
+        if (traced) return super.longestMatch(lexemeBegin);
+        long result = matcher.match(input, lexemeBegin, charClasses, matchEnd);
+        matchedPattern = (int) (result >> 32);
+        scanEnd = matchEnd[0];
+        return (int) result;
+    }
+}
@@ -0,0 +1,65 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+
+/**
+ * 在运行时根据转换表生成专用扫描代码的词法分析器，转换表中的数据被编码为字节码中的tableswitch，
+ * 扫描内存中的输入时不再查表
+ * 从Reader流式读取的输入，以及有ScanListener跟踪扫描过程时，仍使用转换表扫描；TokenizerMetrics的统计与转换表扫描相同
+ * 转换表过大无法生成字节码时create返回基于转换表的CompiledTokenizer并记录警告，可以用instanceof GeneratedTokenizer判断
+ */
+public class GeneratedTokenizer extends CompiledTokenizer {
+
+    /**
+     * 运行时生成的最长匹配代码
+     */
+    private final DFAMatcher matcher;
+
+    private GeneratedTokenizer(TransitionTable table, DFAMatcher matcher, ScanListener listener,
+                               TokenizerMetrics metrics, ScanErrors errors) {
+        super(table, listener, metrics, errors);
+        this.matcher = matcher;
+    }
+
+    /**
+     * 根据转换表生成扫描代码并构造词法分析器
+     *
+     * @param table 转换表
+     * @return 词法分析器，转换表过大、无法生成字节码时返回基于转换表的CompiledTokenizer
+     */
+    public static CompiledTokenizer create(TransitionTable table) {
+        return create(table, null);
+    }
+
+    /**
+     * 根据转换表生成扫描代码并构造错误恢复模式的词法分析器
+     *
+     * @param table  转换表
+     * @param errors 记录无法匹配的输入，为null时不进行错误恢复
+     * @return 词法分析器，转换表过大、无法生成字节码时返回基于转换表的CompiledTokenizer
+     */
+    public static CompiledTokenizer create(TransitionTable table, ScanErrors errors) {
+        return create(table, null, null, errors);
+    }
+
+    /**
+     * 根据转换表生成扫描代码并构造词法分析器
+     *
+     * @param table    转换表
+     * @param listener 扫描过程的跟踪者，用于调试；不为null时内存中的输入也使用转换表扫描
+     * @param metrics  运行时指标，每切分出一个Token累加一次；为null时不统计
+     * @param errors   记录无法匹配的输入，为null时不进行错误恢复
+     * @return 词法分析器，转换表过大、无法生成字节码时返回基于转换表的CompiledTokenizer
+     */
+    public static CompiledTokenizer create(TransitionTable table, ScanListener listener, TokenizerMetrics metrics,
+                                           ScanErrors errors) {
+        DFAMatcher matcher = ScannerClassGenerator.generate(table);
+        if (matcher == null) return new CompiledTokenizer(table, listener, metrics, errors);
+        return new GeneratedTokenizer(table, matcher, listener, metrics, errors);
+    }
+
+    @Override
+    CharSequenceScanner newScanner(CharSequence input, ScanErrors errors) {
+        return new GeneratedScanner(getTable(), input, matcher, getListener(), getMetrics(), errors);
+    }
+}
@@ -2,43 +2,105 @@ package mylex.LexAnalyzer;
 
 import mylex.LexAnalyzer.dfa.DFA;
 import mylex.LexAnalyzer.dfa.DFAOptimizer;
-import mylex.LexAnalyzer.nfa.NFA;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.LexAnalyzer.nfa.CompactNFA;
 import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
 import mylex.vo.Pattern;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public class LexAnalyzer {
 
     private static Logger logger = Logger.getLogger(LexAnalyzer.class.getName());
 
     /**
-     * 根据传入的模式，构造一个基于优化后的DFA词法分析器
+     * 并行编译各个Pattern的线程池
+     */
+    private final ForkJoinPool pool;
+
+    public LexAnalyzer() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool 并行编译各个Pattern的线程池
+     */
+    public LexAnalyzer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * 根据传入的模式，构造一个基于优化后的DFA转换表的词法分析器
      * @param patterns 解析.l文件后的所有模式
      * @return 词法分析器
      */
     public Tokenizer createTokenizer(List<Pattern> patterns){
-        logger.info("开始解析pattern");
-        PatternProcessor patternProcessor = new PatternProcessor(patterns);
-        logger.info("解析pattern完成");
-        logger.info("开始构建NFA");
-        List<NFA> nfaList = patternProcessor.combinePatterns();
-        logger.info("NFA构建完成");
+        return new CompiledTokenizer(compile(patterns));
+    }
+
+    /**
+     * 根据传入的模式，在运行时生成并加载专用的扫描代码，构造词法分析器
+     * 转换表过大、无法生成字节码时退回基于转换表的词法分析器
+     * @param patterns 解析.l文件后的所有模式
+     * @return 词法分析器
+     */
+    public Tokenizer createGeneratedTokenizer(List<Pattern> patterns){
+        TransitionTable table = compile(patterns);
+        logger.info("开始生成扫描代码");
+        CompiledTokenizer tokenizer = GeneratedTokenizer.create(table);
+        logger.info(tokenizer instanceof GeneratedTokenizer ? "扫描代码生成完成" : "转换表过大，使用转换表扫描");
+        return tokenizer;
+    }
 
+    /**
+     * 将传入的模式编译为最简DFA的转换表
+     * 每个Pattern的NFA、DFA和最简DFA在线程池上并行构造，再按Pattern的顺序合并为一个DFA并最小化，
+     * 合并的结果与各个Pattern编译完成的先后无关
+     * @param patterns 解析.l文件后的所有模式
+     * @return 转换表
+     */
+    public TransitionTable compile(List<Pattern> patterns){
+        logger.info("开始并行构建每个pattern的最简DFA");
+        PatternProcessor patternProcessor = new PatternProcessor(patterns);
+        List<ForkJoinTask<DFA>> tasks = new ArrayList<>();
+        for (Pattern pattern : patterns) {
+            tasks.add(pool.submit(() -> compilePattern(patternProcessor, pattern)));
+        }
         List<DFA> dfaList = new ArrayList<>();
-        for (int i = 0; i < nfaList.size(); i++) {
-            logger.info("开始构建DFA");
-            DFA dfa = new DFA(nfaList.get(i));
-            logger.info("DFA构建完成");
-            logger.info("开始优化DFA");
-            DFAOptimizer dfaOptimizer = new DFAOptimizer(dfa.Dtran());
-            logger.info("DFA优化完成");
-            dfaList.add(dfaOptimizer.constructOptimizedDFA());
+        for (ForkJoinTask<DFA> task : tasks) {
+            dfaList.add(task.join());
         }
+        logger.info("每个pattern的最简DFA构建完成");
+
+        logger.info("开始合并DFA");
+        //合并后的DFA接受状态上记录优先级最高的Pattern
+        DFA dfa = DFA.combine(dfaList).Dtran();
+        logger.info("DFA合并完成");
+        logger.info("开始优化DFA");
+        DFAOptimizer dfaOptimizer = new DFAOptimizer(dfa);
+        DFA optimizedDFA = dfaOptimizer.constructOptimizedDFA();
+        logger.info("DFA优化完成");
 
-        return new Tokenizer(dfaList);
+        logger.info("开始编译转换表");
+        TransitionTable table = new TransitionTable(optimizedDFA, patterns);
+        logger.info("转换表编译完成，状态数：" + table.getStateCount() + "，列数：" + table.getClassCount());
+
+        return table;
+    }
+
+    /**
+     * 构造一个Pattern的最简DFA，可以在多个线程中同时调用
+     * @param patternProcessor 没有可变状态的PatternProcessor
+     * @param pattern          模式
+     * @return 该Pattern的最简DFA
+     */
+    private static DFA compilePattern(PatternProcessor patternProcessor, Pattern pattern) {
+        CompactNFA nfa = patternProcessor.createCompactNFA(pattern);
+        return new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
     }
 
 }
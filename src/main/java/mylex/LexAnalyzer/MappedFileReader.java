@@ -0,0 +1,214 @@
+package mylex.LexAnalyzer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.*;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 通过内存映射读取文件的字符流，文件按窗口分段映射，故可以读取超过2GB的文件
+ * 单字节字符集（US-ASCII，ISO-8859-1）直接将字节扩展为字符，其余字符集将映射的字节批量解码到调用者的字符数组中
+ */
+public class MappedFileReader extends Reader {
+
+    /**
+     * 默认的映射窗口大小
+     */
+    public static final int DEFAULT_WINDOW_SIZE = 1 << 28;
+
+    /**
+     * 映射窗口的最小大小，需要能放下任意字符集中一个完整字符的字节
+     */
+    public static final int MIN_WINDOW_SIZE = 16;
+
+    private final FileChannel channel;
+
+    /**
+     * 文件大小
+     */
+    private final long fileSize;
+
+    /**
+     * 每次映射的最大字节数
+     */
+    private final int windowSize;
+
+    /**
+     * 字符集是否为ISO-8859-1，每个字节直接对应一个字符
+     */
+    private final boolean latin1;
+
+    /**
+     * 字符集是否为US-ASCII，大于127的字节替换为U+FFFD
+     */
+    private final boolean ascii;
+
+    /**
+     * 多字节字符集的解码器
+     */
+    private final CharsetDecoder decoder;
+
+    /**
+     * 当前映射的窗口
+     */
+    private MappedByteBuffer window;
+
+    /**
+     * 当前窗口在文件中的开始位置
+     */
+    private long windowStart;
+
+    /**
+     * 解码是否已经结束
+     */
+    private boolean finished;
+
+    /**
+     * 目标数组放不下代理对时暂存的低位代理字符，没有则为-1
+     */
+    private int pendingChar;
+
+    /**
+     * 已经读出的字符数
+     */
+    private long charCount;
+
+    public MappedFileReader(Path path, Charset charset) throws IOException {
+        this(path, charset, DEFAULT_WINDOW_SIZE);
+    }
+
+    /**
+     * @param path       需要读取的文件
+     * @param charset    文件的字符集
+     * @param windowSize 每次映射的最大字节数，不能小于MIN_WINDOW_SIZE
+     */
+    public MappedFileReader(Path path, Charset charset, int windowSize) throws IOException {
+        assert windowSize >= MIN_WINDOW_SIZE : ": 映射窗口过小";
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileSize = channel.size();
+        this.windowSize = windowSize;
+
+        latin1 = charset.equals(StandardCharsets.ISO_8859_1);
+        ascii = charset.equals(StandardCharsets.US_ASCII);
+        decoder = latin1 || ascii ? null : charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        windowStart = 0;
+        finished = false;
+        pendingChar = -1;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int read;
+        if (pendingChar >= 0) {
+            cbuf[off] = (char) pendingChar;
+            pendingChar = -1;
+            read = 1;
+        } else if (decoder == null) {
+            read = readSingleByte(cbuf, off, len);
+        } else {
+            read = readDecoded(cbuf, off, len);
+        }
+        if (read > 0) charCount += read;
+        return read;
+    }
+
+    /**
+     * 已经读出的字符数，读完整个文件后即文件解码后的字符数，代理对计为两个字符
+     */
+    public long getCharCount() {
+        return charCount;
+    }
+
+    /**
+     * 单字节字符集，直接把窗口中的字节扩展为字符
+     */
+    private int readSingleByte(char[] cbuf, int off, int len) throws IOException {
+        if ((window == null || !window.hasRemaining()) && !nextWindow()) return -1;
+
+        int n = Math.min(len, window.remaining());
+        final MappedByteBuffer window = this.window;
+        if (ascii) {
+            for (int i = off; i < off + n; i++) {
+                byte b = window.get();
+                cbuf[i] = b < 0 ? '\uFFFD' : (char) b;
+            }
+        } else {
+            for (int i = off; i < off + n; i++) {
+                cbuf[i] = (char) (window.get() & 0xff);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 多字节字符集，把窗口中的字节批量解码到cbuf中，窗口末尾不完整的字符留到下一个窗口开头再解码
+     */
+    private int readDecoded(char[] cbuf, int off, int len) throws IOException {
+        if (finished) return -1;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.position() == off) {
+            if (window == null && !nextWindow()) {
+                decoder.flush(out);
+                finished = true;
+                break;
+            }
+
+            boolean lastWindow = windowStart + window.limit() == fileSize;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isError()) result.throwException();
+
+            if (result.isOverflow()) {
+                //目标数组只剩一个位置，放不下一个代理对，先解码到临时缓冲区
+                if (out.position() == off) {
+                    CharBuffer pair = CharBuffer.allocate(2);
+                    decoder.decode(window, pair, lastWindow);
+                    pair.flip();
+                    out.put(pair.get());
+                    if (pair.hasRemaining()) pendingChar = pair.get();
+                }
+                break;
+            }
+
+            //窗口中的字节已经解码完，文件结束则刷新解码器，否则从第一个未解码的字节开始映射下一个窗口
+            if (lastWindow) {
+                decoder.flush(out);
+                finished = true;
+                break;
+            }
+            nextWindow();
+        }
+
+        int read = out.position() - off;
+        return read == 0 && finished ? -1 : read;
+    }
+
+    /**
+     * 从当前窗口中第一个未读的字节开始映射下一个窗口
+     *
+     * @return 是否映射了新的窗口，文件已经读完则返回false
+     */
+    private boolean nextWindow() throws IOException {
+        long position = window == null ? 0 : windowStart + window.position();
+        if (position >= fileSize) return false;
+
+        long size = Math.min(windowSize, fileSize - position);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        windowStart = position;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,159 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * 并行切分大输入的词法分析器
+ * 将输入划分为若干块，在ForkJoinPool上对每一块从DFA开始状态推测性地切分（假设块的开头是一个词素的开头），
+ * 再从前往后拼接：前一块最后一个Token的结束位置就是下一块真正的开始位置，若推测结果中有从该位置开始的Token，
+ * 则从此处往后的推测结果与顺序扫描完全相同，可以直接采用；否则从该位置顺序扫描，直到与推测结果重新对齐
+ * 最终结果与顺序扫描的结果相同
+ */
+public class ParallelTokenizer extends CompiledTokenizer {
+
+    /**
+     * 默认的分块大小
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * 每一块的字符数
+     */
+    private final int chunkSize;
+
+    public ParallelTokenizer(TransitionTable table) {
+        this(table, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param table     编译后的转换表
+     * @param pool      执行分块切分的线程池
+     * @param chunkSize 每一块的字符数
+     */
+    public ParallelTokenizer(TransitionTable table, ForkJoinPool pool, int chunkSize) {
+        this(table, pool, chunkSize, null);
+    }
+
+    /**
+     * @param table     编译后的转换表
+     * @param pool      执行分块切分的线程池
+     * @param chunkSize 每一块的字符数
+     * @param errors    不为null时进入错误恢复模式，结果与顺序扫描的错误恢复结果相同，错误只在拼接时记录
+     */
+    public ParallelTokenizer(TransitionTable table, ForkJoinPool pool, int chunkSize, ScanErrors errors) {
+        super(table, null, null, errors);
+        assert chunkSize > 0 : ": 分块大小必须为正数";
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 将输入分块并行切分后拼接，输入不足两块时顺序切分
+     *
+     * @param input 输入的字符序列
+     * @return 与顺序扫描相同的Token序列
+     */
+    @Override
+    public List<Token> getTokens(CharSequence input) {
+        int length = input.length();
+        if (length <= chunkSize) return super.getTokens(input);
+
+        int chunkCount = (int) ((length + (long) chunkSize - 1) / chunkSize);
+
+        //对每一块推测性地切分
+        List<ForkJoinTask<List<Token>>> tasks = new ArrayList<>();
+        for (int i = 0; i < chunkCount; i++) {
+            int chunkBegin = i * chunkSize;
+            int chunkEnd = (int) Math.min((long) chunkBegin + chunkSize, length);
+            tasks.add(pool.submit(() -> speculate(input, chunkBegin, chunkEnd)));
+        }
+
+        //从前往后拼接
+        List<Token> tokens = new ArrayList<>();
+        CharSequenceScanner scanner = newScanner(input);
+        boolean[] skipPatterns = getTable().getSkipPatterns();
+        int position = 0;
+        for (int i = 0; i < chunkCount; i++) {
+            List<Token> speculated = tasks.get(i).join();
+            int chunkEnd = (int) Math.min((long) i * chunkSize + chunkSize, length);
+
+            while (position < chunkEnd) {
+                int index = findTokenBeginAt(speculated, position);
+                if (index >= 0) {
+                    //从对齐的位置开始采用推测结果，直到推测结果中出现间断（推测扫描时跳过了无法匹配的字符）
+                    for (; index < speculated.size() && speculated.get(index).getOffset() == position; index++) {
+                        Token token = speculated.get(index);
+                        if (!skipPatterns[token.getPatternID()]) tokens.add(token);
+                        position = (int) token.getEnd();
+                    }
+                    continue;
+                }
+
+                //没有对齐，顺序扫描一个Token
+                int lexemeEnd = scanner.longestMatch(position);
+                if (lexemeEnd < 0 && getErrors() != null) {
+                    //错误恢复：由顺序扫描器把连续无法匹配的字符作为ERROR Token并记录错误
+                    scanner.seek(position);
+                    tokens.add(scanner.nextToken());
+                    position = scanner.getPosition();
+                    continue;
+                }
+                assert lexemeEnd >= 0 : ": " + input.subSequence(position, length) + "无法解析";
+                if (lexemeEnd < 0) return tokens;
+                if (!scanner.isSkipped()) tokens.add(scanner.createToken(position, lexemeEnd));
+                position = lexemeEnd;
+            }
+        }
+
+        return tokens;
+    }
+
+    /**
+     * 假设chunkBegin是一个词素的开头，切分开始位置在[chunkBegin, chunkEnd)之间的所有Token，
+     * 最后一个Token可以越过chunkEnd；遇到无法匹配的字符时跳过该字符继续推测
+     * 推测结果中保留被跳过的词素，以便拼接时对齐，拼接时再去掉
+     *
+     * @return 推测得到的Token序列，按开始位置递增
+     */
+    private List<Token> speculate(CharSequence input, int chunkBegin, int chunkEnd) {
+        CharSequenceScanner scanner = newScanner(input);
+        List<Token> tokens = new ArrayList<>();
+        int position = chunkBegin;
+        while (position < chunkEnd) {
+            int lexemeEnd = scanner.longestMatch(position);
+            if (lexemeEnd < 0) {
+                position++;
+                continue;
+            }
+            tokens.add(scanner.createToken(position, lexemeEnd));
+            position = lexemeEnd;
+        }
+        return tokens;
+    }
+
+    /**
+     * 在按开始位置递增的Token序列中二分查找从position开始的Token
+     *
+     * @return Token的下标，没有则返回-1
+     */
+    private int findTokenBeginAt(List<Token> tokens, int position) {
+        int low = 0;
+        int high = tokens.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long offset = tokens.get(mid).getOffset();
+            if (offset < position) low = mid + 1;
+            else if (offset > position) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,259 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Token;
+import mylex.vo.TokenTypeTable;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * 从Reader中通过固定大小、可重复填充的缓冲区读取字符，在转换表上按最长匹配逐个切分Token
+ * 缓冲区中只保留当前词素开始之后的字符，跨越缓冲区边界的词素在填充前被移动到缓冲区开头，
+ * 只有当一个词素比整个缓冲区还长时才扩大缓冲区，故占用的内存为 O(缓冲区大小 + 最长词素)
+ */
+class ReaderScanner implements TokenScanner {
+
+    private final Reader reader;
+
+    private final int[] charClasses;
+
+    private final int classCount;
+
+    private final int[] transitions;
+
+    private final int[] acceptPatterns;
+
+    /**
+     * 每个Pattern匹配到的词素是否被跳过
+     */
+    private final boolean[] skipPatterns;
+
+    /**
+     * Token类型表，创建的Token由类型编号从表中查出名字
+     */
+    private final TokenTypeTable typeTable;
+
+    /**
+     * 扫描过程的跟踪者，没有时为null
+     */
+    private final ScanListener listener;
+
+    /**
+     * 运行时指标，没有时为null
+     */
+    private final TokenizerMetrics metrics;
+
+    /**
+     * 错误恢复模式下记录无法匹配的输入，为null时不进行错误恢复
+     */
+    private final ScanErrors errors;
+
+    /**
+     * 最近一次匹配到的词素长度，以及DFA到达死状态前读入的字符个数
+     */
+    private int matchLength;
+
+    private int matchScanned;
+
+    /**
+     * 字符缓冲区
+     */
+    private char[] buffer;
+
+    /**
+     * 当前词素在缓冲区中的开始位置
+     */
+    private int lexemeBegin;
+
+    /**
+     * 缓冲区开头的字符在整个输入中的位置
+     */
+    private long bufferOffset;
+
+    /**
+     * 缓冲区中有效字符的结束位置
+     */
+    private int limit;
+
+    /**
+     * Reader中的字符是否已经全部读入
+     */
+    private boolean eof;
+
+    ReaderScanner(TransitionTable table, Reader reader, int bufferSize, ScanListener listener, TokenizerMetrics metrics,
+                  ScanErrors errors) {
+        assert bufferSize > 0 : ": 缓冲区大小必须为正数";
+        this.reader = reader;
+        typeTable = table.getTypeTable();
+        this.listener = listener;
+        this.metrics = metrics;
+        this.errors = errors;
+        charClasses = table.getCharClasses();
+        classCount = table.getClassCount();
+        transitions = table.getTransitions();
+        acceptPatterns = table.getAcceptPatterns();
+        skipPatterns = table.getSkipPatterns();
+
+        buffer = new char[bufferSize];
+        bufferOffset = 0;
+        lexemeBegin = 0;
+        limit = 0;
+        eof = false;
+    }
+
+    /**
+     * 按最长匹配扫描下一个Token，被跳过的词素只移动扫描位置，不截取词素也不创建Token
+     *
+     * @return 下一个Token，输入结束时返回null
+     */
+    @Override
+    public Token nextToken() throws IOException {
+        while (lexemeBegin < limit || fill()) {
+            int pattern = listener != null ? matchTraced() : match();
+            if (pattern == TransitionTable.NO_PATTERN) {
+                if (errors != null) return recover();
+                assert false : ": " + new String(buffer, lexemeBegin, limit - lexemeBegin) + "无法解析";
+                return null;
+            }
+
+            if (metrics != null) metrics.recordToken(pattern, matchLength, matchScanned - matchLength);
+            if (skipPatterns[pattern]) {
+                lexemeBegin += matchLength;
+                continue;
+            }
+
+            //缓冲区会被重复填充，故流式读取时需要立即截取词素
+            Token token = new Token(typeTable, pattern, new String(buffer, lexemeBegin, matchLength),
+                    bufferOffset + lexemeBegin);
+            lexemeBegin += matchLength;
+            return token;
+        }
+        return null;
+    }
+
+    /**
+     * 错误恢复：把从当前位置开始的连续无法匹配的字符作为一个ERROR Token，
+     * 一直跳过到下一个能匹配的位置，该位置上的词素在下一次调用nextToken时重新扫描
+     */
+    private Token recover() throws IOException {
+        long errorOffset = bufferOffset + lexemeBegin;
+        StringBuilder error = new StringBuilder();
+        do {
+            error.append(buffer[lexemeBegin++]);
+            if (lexemeBegin == limit && !fill()) break;
+        } while ((listener != null ? matchTraced() : match()) == TransitionTable.NO_PATTERN);
+
+        errors.record(errorOffset, errorOffset + error.length());
+        return new Token(typeTable, TransitionTable.NO_PATTERN, error.toString(), errorOffset);
+    }
+
+    /**
+     * 从当前位置按最长匹配找到一个词素，不移动位置，词素长度保存在matchLength中
+     * 调用前缓冲区中至少有一个未扫描的字符
+     *
+     * @return 匹配到的Pattern编号，没有任何Pattern能匹配时返回NO_PATTERN
+     */
+    private int match() throws IOException {
+        final int[] charClasses = this.charClasses;
+        final int[] transitions = this.transitions;
+        final int[] acceptPatterns = this.acceptPatterns;
+        final int classCount = this.classCount;
+
+        int state = 0;
+        //最后一次经过的接受状态所接受的Pattern编号，以及对应词素的长度
+        int lastPattern = TransitionTable.NO_PATTERN;
+        int lastLength = 0;
+        //当前词素已经读入的字符个数，填充缓冲区时词素会被移动，故记录相对于词素开始的长度
+        int scanned = 0;
+
+        scan:
+        while (lexemeBegin + scanned < limit || fill()) {
+            final char[] buffer = this.buffer;
+            final int limit = this.limit;
+            int forward = lexemeBegin + scanned;
+            while (forward < limit) {
+                char c = buffer[forward++];
+                int charClass = c < charClasses.length ? charClasses[c] : 0;
+                state = transitions[state * classCount + charClass];
+                if (state == TransitionTable.DEAD_STATE) {
+                    scanned = forward - 1 - lexemeBegin;
+                    break scan;
+                }
+                int pattern = acceptPatterns[state];
+                if (pattern != TransitionTable.NO_PATTERN) {
+                    lastPattern = pattern;
+                    lastLength = forward - lexemeBegin;
+                }
+            }
+            scanned = forward - lexemeBegin;
+        }
+
+        matchLength = lastLength;
+        matchScanned = scanned;
+        return lastPattern;
+    }
+
+    /**
+     * 与match相同，同时把每一次转换、经过的接受状态和回退通知给listener
+     */
+    private int matchTraced() throws IOException {
+        int state = 0;
+        int lastPattern = TransitionTable.NO_PATTERN;
+        int lastLength = 0;
+        int scanned = 0;
+
+        while (lexemeBegin + scanned < limit || fill()) {
+            char c = buffer[lexemeBegin + scanned];
+            int charClass = c < charClasses.length ? charClasses[c] : 0;
+            int nextState = transitions[state * classCount + charClass];
+            listener.transition(state, c, nextState, bufferOffset + lexemeBegin + scanned);
+            if (nextState == TransitionTable.DEAD_STATE) break;
+            scanned++;
+            state = nextState;
+            int pattern = acceptPatterns[state];
+            if (pattern != TransitionTable.NO_PATTERN) {
+                lastPattern = pattern;
+                lastLength = scanned;
+                listener.accept(state, pattern, bufferOffset + lexemeBegin + lastLength);
+            }
+        }
+
+        if (lastPattern != TransitionTable.NO_PATTERN && scanned > lastLength) {
+            listener.backtrack(bufferOffset + lexemeBegin + scanned, bufferOffset + lexemeBegin + lastLength);
+        }
+        matchLength = lastLength;
+        matchScanned = scanned;
+        return lastPattern;
+    }
+
+    /**
+     * 向缓冲区中读入更多字符，先把当前词素移动到缓冲区开头，缓冲区已被当前词素占满时才扩大缓冲区
+     *
+     * @return 是否读入了新的字符，输入结束时返回false
+     */
+    private boolean fill() throws IOException {
+        if (eof) return false;
+
+        if (lexemeBegin > 0) {
+            System.arraycopy(buffer, lexemeBegin, buffer, 0, limit - lexemeBegin);
+            bufferOffset += lexemeBegin;
+            limit -= lexemeBegin;
+            lexemeBegin = 0;
+        }
+        if (limit == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        int read;
+        do {
+            read = reader.read(buffer, limit, buffer.length - limit);
+        } while (read == 0);
+
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+}
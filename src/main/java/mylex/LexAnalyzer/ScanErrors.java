@@ -0,0 +1,102 @@
+package mylex.LexAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 错误恢复模式下记录无法匹配的输入
+ * 每一段连续的无法被任何Pattern匹配的字符算作一个错误，记录错误的个数、字符数，以及前若干个错误的开始位置
+ * 可以被多个线程同时使用
+ */
+public class ScanErrors {
+
+    /**
+     * 默认最多记录的错误位置个数
+     */
+    public static final int DEFAULT_MAX_OFFSETS = 1000;
+
+    private final LongAdder errorCount = new LongAdder();
+
+    private final LongAdder errorCharCount = new LongAdder();
+
+    /**
+     * 最多记录的错误位置个数，避免错误很多时占用大量内存
+     */
+    private final int maxOffsets;
+
+    private final List<Long> offsets = new ArrayList<>();
+
+    public ScanErrors() {
+        this(DEFAULT_MAX_OFFSETS);
+    }
+
+    public ScanErrors(int maxOffsets) {
+        this.maxOffsets = maxOffsets;
+    }
+
+    /**
+     * 记录一段无法匹配的输入
+     *
+     * @param offset 开始位置
+     * @param end    结束位置（不包含）
+     */
+    void record(long offset, long end) {
+        errorCount.increment();
+        errorCharCount.add(end - offset);
+        synchronized (offsets) {
+            if (offsets.size() < maxOffsets) offsets.add(offset);
+        }
+    }
+
+    /**
+     * 撤销一段无法匹配的输入的记录，增量切分时该段输入被重新扫描
+     *
+     * @param offset 开始位置
+     * @param end    结束位置（不包含）
+     */
+    void remove(long offset, long end) {
+        errorCount.decrement();
+        errorCharCount.add(offset - end);
+        synchronized (offsets) {
+            offsets.remove(Long.valueOf(offset));
+        }
+    }
+
+    /**
+     * 输入被修改后移动修改位置之后的错误的开始位置
+     *
+     * @param from  原输入中修改区域的结束位置，开始位置不小于from的错误被移动
+     * @param delta 移动的距离
+     */
+    void shift(long from, long delta) {
+        synchronized (offsets) {
+            for (int i = 0; i < offsets.size(); i++) {
+                if (offsets.get(i) >= from) offsets.set(i, offsets.get(i) + delta);
+            }
+        }
+    }
+
+    /**
+     * 错误的个数，即无法匹配的连续输入的段数
+     */
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    /**
+     * 无法匹配的字符总数
+     */
+    public long getErrorCharCount() {
+        return errorCharCount.sum();
+    }
+
+    /**
+     * 前若干个错误的开始位置，按记录的先后排列
+     */
+    public List<Long> getErrorOffsets() {
+        synchronized (offsets) {
+            return new ArrayList<>(offsets);
+        }
+    }
+}
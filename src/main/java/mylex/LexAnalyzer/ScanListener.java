@@ -0,0 +1,40 @@
+package mylex.LexAnalyzer;
+
+/**
+ * 扫描过程的跟踪接口，用于调试时观察DFA的每一次转换、经过的接受状态和回退
+ * 没有安装ScanListener时扫描器使用不含任何跟踪代码的循环，不会产生额外开销；
+ * 安装后每次扫描一个词素时才切换到带跟踪的循环
+ * 所有位置都是字符在整个输入中的位置
+ */
+public interface ScanListener {
+
+    /**
+     * DFA读入一个字符后发生转换
+     *
+     * @param state     转换前的状态
+     * @param c         读入的字符
+     * @param nextState 转换后的状态，没有可转换的状态时为TransitionTable.DEAD_STATE
+     * @param position  读入字符的位置
+     */
+    default void transition(int state, char c, int nextState, long position) {
+    }
+
+    /**
+     * DFA经过一个接受状态
+     *
+     * @param state     接受状态
+     * @param patternID 该状态接受的Pattern编号
+     * @param end       此时词素的结束位置（不包含）
+     */
+    default void accept(int state, int patternID, long end) {
+    }
+
+    /**
+     * DFA经过最后一个接受状态之后仍在非接受状态上读入了字符，扫描结束时回退到最后一个接受状态
+     *
+     * @param forward   扫描停止前最后一次成功转换所读入字符的结束位置（不包含）
+     * @param lexemeEnd 回退后词素的结束位置（不包含）
+     */
+    default void backtrack(long forward, long lexemeEnd) {
+    }
+}
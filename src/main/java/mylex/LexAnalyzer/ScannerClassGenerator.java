@@ -0,0 +1,690 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 在运行时根据转换表生成实现DFAMatcher的类的字节码并加载
+ * 生成的match方法是最长匹配循环，每读入一个字符调用一次静态的转换方法；状态按编号分组，每组生成一个转换方法，
+ * 方法中先用tableswitch按当前状态分派，每个状态再用一个tableswitch按字符所在的列返回目的状态，转换表中的数据全部成为常量
+ * 每组的状态数使转换方法不超过HotSpot默认编译的方法长度（HugeMethodLimit，8000字节），状态很多时由一个分派方法按组号调用
+ * 转换方法返回 (接受的Pattern编号 + 1) << STATE_BITS | 目的状态，没有转换时返回-1
+ * 运行在Java 15及以上时以隐藏类加载，不再使用时可以被卸载；否则通过Lookup.defineClass加载
+ * 生成的类文件版本为49（Java 5），不需要StackMapTable
+ */
+final class ScannerClassGenerator {
+
+    private static Logger logger = Logger.getLogger(ScannerClassGenerator.class.getName());
+
+    /**
+     * 方法字节码的最大长度
+     */
+    private static final int MAX_CODE_LENGTH = 65535;
+
+    /**
+     * 每个转换方法的目标长度，HotSpot默认不编译超过8000字节的方法
+     */
+    private static final int METHOD_CODE_BUDGET = 8000;
+
+    /**
+     * 转换方法返回值中目的状态所占的位数，其余的高位保存接受的Pattern编号加1
+     */
+    private static final int STATE_BITS = 20;
+
+    private static final int MAX_STATE_COUNT = 1 << STATE_BITS;
+
+    private static final int MAX_PATTERN_COUNT = (Integer.MAX_VALUE >>> STATE_BITS) - 1;
+
+    /**
+     * 常量池的最大项数
+     */
+    private static final int MAX_CONSTANT_COUNT = 65535;
+
+    private static final int CLASS_FILE_VERSION = 49;
+
+    /**
+     * 生成类的编号，保证Lookup.defineClass加载的类名不重复
+     */
+    private static final AtomicInteger classID = new AtomicInteger();
+
+    private static final String MATCH_DESCRIPTOR = "(Ljava/lang/CharSequence;I[I[I)J";
+
+    private static final String STEP_DESCRIPTOR = "(II)I";
+
+    //match方法中局部变量的位置
+    private static final int INPUT = 1;
+    private static final int LEXEME_BEGIN = 2;
+    private static final int CHAR_CLASSES = 3;
+    private static final int SCAN_END = 4;
+    private static final int LENGTH = 5;
+    private static final int FORWARD = 6;
+    private static final int STATE = 7;
+    private static final int LAST_PATTERN = 8;
+    private static final int LAST_END = 9;
+    private static final int CHAR_CLASS = 10;
+
+    //用到的指令
+    private static final int ICONST_M1 = 0x02;
+    private static final int ICONST_0 = 0x03;
+    private static final int ICONST_1 = 0x04;
+    private static final int BIPUSH = 0x10;
+    private static final int LDC_W = 0x13;
+    private static final int ILOAD = 0x15;
+    private static final int ALOAD = 0x19;
+    private static final int ILOAD_0 = 0x1a;
+    private static final int ILOAD_1 = 0x1b;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int ALOAD_3 = 0x2d;
+    private static final int IALOAD = 0x2e;
+    private static final int ISTORE = 0x36;
+    private static final int IASTORE = 0x4f;
+    private static final int IADD = 0x60;
+    private static final int ISUB = 0x64;
+    private static final int ISHL = 0x78;
+    private static final int LSHL = 0x79;
+    private static final int ISHR = 0x7a;
+    private static final int IUSHR = 0x7c;
+    private static final int LUSHR = 0x7d;
+    private static final int LOR = 0x81;
+    private static final int IINC = 0x84;
+    private static final int I2L = 0x85;
+    private static final int IFEQ = 0x99;
+    private static final int IFLT = 0x9b;
+    private static final int IF_ICMPGE = 0xa2;
+    private static final int GOTO = 0xa7;
+    private static final int TABLESWITCH = 0xaa;
+    private static final int IRETURN = 0xac;
+    private static final int LRETURN = 0xad;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+    private static final int INVOKEINTERFACE = 0xb9;
+    private static final int ARRAYLENGTH = 0xbe;
+
+    private final TransitionTable table;
+
+    private final String className;
+
+    /**
+     * 常量池，constants中按写入顺序保存已编码的常量，constantIndexes为常量到下标的映射
+     */
+    private final ByteArrayOutputStream constantBytes = new ByteArrayOutputStream();
+
+    private final DataOutputStream constants = new DataOutputStream(constantBytes);
+
+    private final Map<String, Integer> constantIndexes = new HashMap<>();
+
+    private int constantCount = 1;
+
+    /**
+     * 正在生成的方法的字节码
+     */
+    private byte[] code;
+
+    private int codeLength;
+
+    /**
+     * 每个标签在字节码中的位置，未确定时为-1
+     */
+    private int[] labels;
+
+    /**
+     * 需要在方法生成结束后回填的跳转偏移：{偏移所在位置, 跳转指令的位置, 标签, 偏移的字节数}
+     */
+    private List<int[]> fixups;
+
+    /**
+     * 无法生成时的原因
+     */
+    private String failure;
+
+    private ScannerClassGenerator(TransitionTable table) {
+        this.table = table;
+        className = "mylex/LexAnalyzer/GeneratedDFAMatcher$" + classID.incrementAndGet();
+    }
+
+    /**
+     * 根据转换表生成并加载DFAMatcher
+     *
+     * @param table 转换表
+     * @return 生成的DFAMatcher，无法生成字节码时记录原因并返回null
+     */
+    static DFAMatcher generate(TransitionTable table) {
+        ScannerClassGenerator generator = new ScannerClassGenerator(table);
+        byte[] classFile = generator.generateClassFile();
+        if (classFile == null) {
+            logger.warn("无法生成扫描代码，使用转换表扫描：" + generator.failure);
+            return null;
+        }
+
+        try {
+            return (DFAMatcher) defineClass(classFile).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 优先以隐藏类加载，Java 15之前没有隐藏类时使用Lookup.defineClass
+     */
+    private static Class<?> defineClass(byte[] classFile) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Class<?> optionClass;
+        Method defineHiddenClass;
+        try {
+            optionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            defineHiddenClass = MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, Array.newInstance(optionClass, 0).getClass());
+        } catch (ClassNotFoundException | NoSuchMethodException e) {
+            return lookup.defineClass(classFile);
+        }
+
+        try {
+            Object hiddenLookup = defineHiddenClass.invoke(lookup, classFile, true, Array.newInstance(optionClass, 0));
+            return ((MethodHandles.Lookup) hiddenLookup).lookupClass();
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * 生成类文件
+     *
+     * @return 类文件的内容，无法生成时设置failure并返回null
+     */
+    private byte[] generateClassFile() {
+        int stateCount = table.getStateCount();
+        int classCount = table.getClassCount();
+        if (stateCount > MAX_STATE_COUNT) return fail("状态数" + stateCount + "超过" + MAX_STATE_COUNT);
+        if (table.getPatterns().size() > MAX_PATTERN_COUNT) {
+            return fail("Pattern数" + table.getPatterns().size() + "超过" + MAX_PATTERN_COUNT);
+        }
+
+        //每个状态的代码最多为：对齐的tableswitch，以及每列一个返回目的状态的代码块；每组的状态数取2的幂，用移位求组号
+        int stateCodeLength = 20 + 8 * classCount;
+        int groupBits = 0;
+        while (groupBits < STATE_BITS && (2 << groupBits) * (stateCodeLength + 4) + 32 <= METHOD_CODE_BUDGET) {
+            groupBits++;
+        }
+        int groupCount = (stateCount + (1 << groupBits) - 1) >> groupBits;
+
+        List<byte[]> stepCodes = new ArrayList<>();
+        for (int group = 0; group < groupCount; group++) {
+            int firstState = group << groupBits;
+            byte[] stepCode = generateStepCode(firstState, Math.min(firstState + (1 << groupBits), stateCount));
+            if (stepCode == null) return fail("状态" + firstState + "所在组的转换方法超过" + MAX_CODE_LENGTH + "字节，列数为" + classCount);
+            stepCodes.add(stepCode);
+        }
+        //只有一组时match直接调用该组的转换方法
+        byte[] dispatchCode = null;
+        if (groupCount > 1) {
+            dispatchCode = generateDispatchCode(groupBits, groupCount);
+            if (dispatchCode == null) return fail("状态分为" + groupCount + "组，分派方法超过" + MAX_CODE_LENGTH + "字节");
+        }
+        byte[] matchCode = generateMatchCode(groupCount > 1 ? "step" : "step0");
+        if (matchCode == null) return fail("match方法生成失败");
+
+        int thisClass = classConstant(className);
+        int objectClass = classConstant("java/lang/Object");
+        int matcherClass = classConstant("mylex/LexAnalyzer/DFAMatcher");
+        int initName = utf8Constant("<init>");
+        int initDescriptor = utf8Constant("()V");
+        int objectInit = memberConstant(10, "java/lang/Object", "<init>", "()V");
+        int matchName = utf8Constant("match");
+        int matchDescriptor = utf8Constant(MATCH_DESCRIPTOR);
+        int stepDescriptor = utf8Constant(STEP_DESCRIPTOR);
+        int[] stepNames = new int[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            stepNames[group] = utf8Constant("step" + group);
+        }
+        int dispatchName = utf8Constant("step");
+        int codeName = utf8Constant("Code");
+        if (constantCount > MAX_CONSTANT_COUNT) return fail("常量池超过" + MAX_CONSTANT_COUNT + "项");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_FILE_VERSION);
+
+            constants.flush();
+            out.writeShort(constantCount);
+            constantBytes.writeTo(out);
+
+            //public final class，实现DFAMatcher
+            out.writeShort(0x0001 | 0x0010 | 0x0020);
+            out.writeShort(thisClass);
+            out.writeShort(objectClass);
+            out.writeShort(1);
+            out.writeShort(matcherClass);
+            out.writeShort(0);
+
+            out.writeShort(2 + groupCount + (dispatchCode != null ? 1 : 0));
+            //构造方法
+            byte[] initCode = {(byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (objectInit >> 8), (byte) objectInit, (byte) RETURN};
+            writeMethod(out, 0x0001, initName, initDescriptor, codeName, 1, 1, initCode);
+            //match方法
+            writeMethod(out, 0x0001, matchName, matchDescriptor, codeName, 5, CHAR_CLASS + 1, matchCode);
+            //public static的转换方法
+            for (int group = 0; group < groupCount; group++) {
+                writeMethod(out, 0x0009, stepNames[group], stepDescriptor, codeName, 1, 2, stepCodes.get(group));
+            }
+            if (dispatchCode != null) writeMethod(out, 0x0009, dispatchName, stepDescriptor, codeName, 2, 2, dispatchCode);
+
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private byte[] fail(String reason) {
+        failure = reason;
+        return null;
+    }
+
+    /**
+     * 生成match方法的字节码：最长匹配循环，每读入一个字符调用一次转换方法
+     *
+     * @param stepName 转换方法名
+     * @return 字节码，无法生成时返回null
+     */
+    private byte[] generateMatchCode(String stepName) {
+        int lengthMethod = memberConstant(11, "java/lang/CharSequence", "length", "()I");
+        int charAtMethod = memberConstant(11, "java/lang/CharSequence", "charAt", "(I)C");
+        int stepMethod = memberConstant(10, className, stepName, STEP_DESCRIPTOR);
+
+        //标签：0为循环开始，1为返回，2为读入下一个字符
+        final int loop = 0;
+        final int end = 1;
+        final int next = 2;
+        beginMethod(3);
+
+        //int length = input.length(); forward = lexemeBegin; state = 0; lastPattern = lastEnd = -1;
+        emit(ALOAD_1);
+        emitInvoke(INVOKEINTERFACE, lengthMethod, 1);
+        emit(ISTORE, LENGTH);
+        emit(ILOAD, LEXEME_BEGIN);
+        emit(ISTORE, FORWARD);
+        emit(ICONST_0);
+        emit(ISTORE, STATE);
+        emit(ICONST_M1);
+        emit(ISTORE, LAST_PATTERN);
+        emit(ICONST_M1);
+        emit(ISTORE, LAST_END);
+
+        //while (forward < length)
+        mark(loop);
+        emit(ILOAD, FORWARD);
+        emit(ILOAD, LENGTH);
+        emitJump(IF_ICMPGE, end);
+
+        //char c = input.charAt(forward); 超出映射范围的字符在第0列，任何状态在第0列上都没有转换
+        emit(ALOAD_1);
+        emit(ILOAD, FORWARD);
+        emitInvoke(INVOKEINTERFACE, charAtMethod, 2);
+        emit(ISTORE, CHAR_CLASS);
+        emit(ILOAD, CHAR_CLASS);
+        emit(ALOAD_3);
+        emit(ARRAYLENGTH);
+        emitJump(IF_ICMPGE, end);
+        emit(ALOAD_3);
+        emit(ILOAD, CHAR_CLASS);
+        emit(IALOAD);
+        emit(ISTORE, CHAR_CLASS);
+
+        //int result = step(state, charClass); if (result < 0) break;
+        emit(ILOAD, STATE);
+        emit(ILOAD, CHAR_CLASS);
+        emitInvoke(INVOKESTATIC, stepMethod, 0);
+        emit(ISTORE, CHAR_CLASS);
+        emit(ILOAD, CHAR_CLASS);
+        emitJump(IFLT, end);
+
+        //state = result << (32 - STATE_BITS) >>> (32 - STATE_BITS); pattern = result >>> STATE_BITS;
+        emit(ILOAD, CHAR_CLASS);
+        emit(BIPUSH, 32 - STATE_BITS);
+        emit(ISHL);
+        emit(BIPUSH, 32 - STATE_BITS);
+        emit(IUSHR);
+        emit(ISTORE, STATE);
+        emit(ILOAD, CHAR_CLASS);
+        emit(BIPUSH, STATE_BITS);
+        emit(IUSHR);
+        emit(ISTORE, CHAR_CLASS);
+
+        //目的状态为接受状态时记录Pattern和词素结束位置
+        emit(ILOAD, CHAR_CLASS);
+        emitJump(IFEQ, next);
+        emit(ILOAD, CHAR_CLASS);
+        emit(ICONST_1);
+        emit(ISUB);
+        emit(ISTORE, LAST_PATTERN);
+        emit(ILOAD, FORWARD);
+        emit(ICONST_1);
+        emit(IADD);
+        emit(ISTORE, LAST_END);
+
+        //forward++
+        mark(next);
+        emit(IINC, FORWARD, 1);
+        emitJump(GOTO, loop);
+
+        //scanEnd[0] = forward; return ((long) lastPattern << 32) | (lastEnd & 0xFFFFFFFFL);
+        mark(end);
+        emit(ALOAD, SCAN_END);
+        emit(ICONST_0);
+        emit(ILOAD, FORWARD);
+        emit(IASTORE);
+        emit(ILOAD, LAST_PATTERN);
+        emit(I2L);
+        emit(BIPUSH, 32);
+        emit(LSHL);
+        emit(ILOAD, LAST_END);
+        emit(I2L);
+        emit(BIPUSH, 32);
+        emit(LSHL);
+        emit(BIPUSH, 32);
+        emit(LUSHR);
+        emit(LOR);
+        emit(LRETURN);
+
+        return endMethod();
+    }
+
+    /**
+     * 生成一组状态的转换方法 static int stepN(int state, int charClass)
+     *
+     * @param firstState 组中的第一个状态
+     * @param endState   组中最后一个状态的下一个状态
+     * @return 字节码，超过方法长度限制时返回null
+     */
+    private byte[] generateStepCode(int firstState, int endState) {
+        int classCount = table.getClassCount();
+        int[] transitions = table.getTransitions();
+        int[] acceptPatterns = table.getAcceptPatterns();
+
+        //标签：0为没有转换，1..1+组中状态数为按状态分派，之后为返回各目的状态
+        final int dead = 0;
+        final int dispatchBase = 1;
+        final int targetBase = dispatchBase + endState - firstState;
+        beginMethod(targetBase + table.getStateCount());
+
+        //按当前状态分派
+        emit(ILOAD_0);
+        int[] stateLabels = new int[endState - firstState];
+        for (int state = firstState; state < endState; state++) {
+            stateLabels[state - firstState] = dispatchBase + state - firstState;
+        }
+        emitTableSwitch(firstState, stateLabels, dead);
+
+        //每个状态按字符所在的列跳转到返回目的状态的代码，同一方法中返回相同目的状态的代码只生成一次
+        List<Integer> targets = new ArrayList<>();
+        boolean[] isTarget = new boolean[table.getStateCount()];
+        for (int state = firstState; state < endState; state++) {
+            mark(dispatchBase + state - firstState);
+            int[] classLabels = new int[classCount - 1];
+            boolean hasEdge = false;
+            for (int charClass = 1; charClass < classCount; charClass++) {
+                int destState = transitions[state * classCount + charClass];
+                if (destState == TransitionTable.DEAD_STATE) {
+                    classLabels[charClass - 1] = dead;
+                    continue;
+                }
+                classLabels[charClass - 1] = targetBase + destState;
+                hasEdge = true;
+                if (!isTarget[destState]) {
+                    isTarget[destState] = true;
+                    targets.add(destState);
+                }
+            }
+            if (hasEdge) {
+                emit(ILOAD_1);
+                emitTableSwitch(1, classLabels, dead);
+            } else emitJump(GOTO, dead);
+        }
+
+        //return (acceptPatterns[d] + 1) << STATE_BITS | d;
+        for (int destState : targets) {
+            mark(targetBase + destState);
+            emit(LDC_W);
+            emitShortOperand(integerConstant((acceptPatterns[destState] + 1) << STATE_BITS | destState));
+            emit(IRETURN);
+        }
+
+        mark(dead);
+        emit(ICONST_M1);
+        emit(IRETURN);
+
+        return endMethod();
+    }
+
+    /**
+     * 生成分派方法 static int step(int state, int charClass)，按组号调用各组的转换方法
+     *
+     * @param groupBits  每组状态数的位数
+     * @param groupCount 组数
+     * @return 字节码，超过方法长度限制时返回null
+     */
+    private byte[] generateDispatchCode(int groupBits, int groupCount) {
+        //标签：0为没有转换，1..1+groupCount为调用各组的转换方法
+        final int dead = 0;
+        beginMethod(1 + groupCount);
+
+        //switch (state >> groupBits)
+        emit(ILOAD_0);
+        emit(BIPUSH, groupBits);
+        emit(ISHR);
+        int[] groupLabels = new int[groupCount];
+        for (int group = 0; group < groupCount; group++) {
+            groupLabels[group] = 1 + group;
+        }
+        emitTableSwitch(0, groupLabels, dead);
+
+        for (int group = 0; group < groupCount; group++) {
+            mark(1 + group);
+            emit(ILOAD_0);
+            emit(ILOAD_1);
+            emitInvoke(INVOKESTATIC, memberConstant(10, className, "step" + group, STEP_DESCRIPTOR), 0);
+            emit(IRETURN);
+        }
+
+        mark(dead);
+        emit(ICONST_M1);
+        emit(IRETURN);
+
+        return endMethod();
+    }
+
+    /**
+     * 开始生成一个方法
+     *
+     * @param labelCount 方法中的标签数
+     */
+    private void beginMethod(int labelCount) {
+        code = new byte[256];
+        codeLength = 0;
+        fixups = new ArrayList<>();
+        labels = new int[labelCount];
+        Arrays.fill(labels, -1);
+    }
+
+    /**
+     * 回填跳转偏移，结束一个方法的生成
+     *
+     * @return 方法的字节码，超过方法长度限制或跳转偏移超出范围时返回null
+     */
+    private byte[] endMethod() {
+        if (codeLength > MAX_CODE_LENGTH) return null;
+
+        for (int[] fixup : fixups) {
+            int offset = labels[fixup[2]] - fixup[1];
+            if (fixup[3] == 2) {
+                if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) return null;
+                code[fixup[0]] = (byte) (offset >> 8);
+                code[fixup[0] + 1] = (byte) offset;
+            } else putInt(fixup[0], offset);
+        }
+        return Arrays.copyOf(code, codeLength);
+    }
+
+    private void emit(int... bytes) {
+        for (int b : bytes) {
+            ensureCapacity(1);
+            code[codeLength++] = (byte) b;
+        }
+    }
+
+    private void emitShortOperand(int value) {
+        emit(value >> 8, value);
+    }
+
+    /**
+     * 生成方法调用，invokeinterface需要参数个数（包括接收者），invokestatic不需要
+     */
+    private void emitInvoke(int opcode, int methodRef, int argCount) {
+        emit(opcode);
+        emitShortOperand(methodRef);
+        if (opcode == INVOKEINTERFACE) emit(argCount, 0);
+    }
+
+    private void emitJump(int opcode, int label) {
+        int opcodePosition = codeLength;
+        emit(opcode, 0, 0);
+        fixups.add(new int[]{opcodePosition + 1, opcodePosition, label, 2});
+    }
+
+    /**
+     * 生成tableswitch，targets[i]为值low + i对应的标签
+     */
+    private void emitTableSwitch(int low, int[] targets, int defaultLabel) {
+        int opcodePosition = codeLength;
+        emit(TABLESWITCH);
+        //操作数从4字节对齐的位置开始
+        while (codeLength % 4 != 0) {
+            emit(0);
+        }
+        addIntFixup(opcodePosition, defaultLabel);
+        emitInt(low);
+        emitInt(low + targets.length - 1);
+        for (int target : targets) {
+            addIntFixup(opcodePosition, target);
+        }
+    }
+
+    private void addIntFixup(int opcodePosition, int label) {
+        fixups.add(new int[]{codeLength, opcodePosition, label, 4});
+        emitInt(0);
+    }
+
+    private void emitInt(int value) {
+        ensureCapacity(4);
+        putInt(codeLength, value);
+        codeLength += 4;
+    }
+
+    private void putInt(int position, int value) {
+        code[position] = (byte) (value >> 24);
+        code[position + 1] = (byte) (value >> 16);
+        code[position + 2] = (byte) (value >> 8);
+        code[position + 3] = (byte) value;
+    }
+
+    private void mark(int label) {
+        labels[label] = codeLength;
+    }
+
+    private void ensureCapacity(int size) {
+        if (codeLength + size > code.length) code = Arrays.copyOf(code, Math.max(code.length * 2, codeLength + size));
+    }
+
+    private int utf8Constant(String s) {
+        Integer index = constantIndexes.get("U" + s);
+        if (index != null) return index;
+        try {
+            constants.writeByte(1);
+            constants.writeUTF(s);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constantIndexes.put("U" + s, constantCount);
+        return constantCount++;
+    }
+
+    private int integerConstant(int value) {
+        Integer index = constantIndexes.get("I" + value);
+        if (index != null) return index;
+        try {
+            constants.writeByte(3);
+            constants.writeInt(value);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constantIndexes.put("I" + value, constantCount);
+        return constantCount++;
+    }
+
+    private int classConstant(String name) {
+        return refConstant(7, utf8Constant(name));
+    }
+
+    /**
+     * 方法引用常量，tag为10时是Methodref，为11时是InterfaceMethodref
+     */
+    private int memberConstant(int tag, String owner, String name, String descriptor) {
+        int nameAndType = refConstant(12, utf8Constant(name), utf8Constant(descriptor));
+        return refConstant(tag, classConstant(owner), nameAndType);
+    }
+
+    /**
+     * Class、NameAndType、Methodref、InterfaceMethodref等由常量池下标组成的常量
+     */
+    private int refConstant(int tag, int... indexes) {
+        String key = tag + Arrays.toString(indexes);
+        Integer index = constantIndexes.get(key);
+        if (index != null) return index;
+        try {
+            constants.writeByte(tag);
+            for (int i : indexes) {
+                constants.writeShort(i);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        constantIndexes.put(key, constantCount);
+        return constantCount++;
+    }
+
+    private static void writeMethod(DataOutputStream out, int access, int name, int descriptor, int codeName,
+                                    int maxStack, int maxLocals, byte[] code) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+}
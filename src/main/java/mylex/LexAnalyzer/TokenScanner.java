@@ -0,0 +1,18 @@
+package mylex.LexAnalyzer;
+
+import mylex.vo.Token;
+
+import java.io.IOException;
+
+/**
+ * 逐个切分Token的扫描器，每次调用只扫描到下一个Token为止
+ */
+interface TokenScanner {
+
+    /**
+     * 扫描下一个Token
+     *
+     * @return 下一个Token，输入结束时返回null
+     */
+    Token nextToken() throws IOException;
+}
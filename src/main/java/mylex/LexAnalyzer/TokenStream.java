@@ -0,0 +1,79 @@
+package mylex.LexAnalyzer;
+
+import mylex.vo.Token;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 按需切分Token的迭代器，每次只扫描到下一个Token为止，调用者不需要等待整个输入切分完成，
+ * 也不需要保存所有的Token
+ */
+public class TokenStream implements Iterator<Token> {
+
+    private final TokenScanner scanner;
+
+    /**
+     * hasNext时预先扫描出的Token，尚未被next取走
+     */
+    private Token nextToken;
+
+    /**
+     * 输入是否已经切分完
+     */
+    private boolean finished;
+
+    TokenStream(TokenScanner scanner) {
+        this.scanner = scanner;
+        finished = false;
+    }
+
+    /**
+     * 判断是否还有Token，必要时扫描下一个Token
+     *
+     * @throws UncheckedIOException 读取输入出错
+     */
+    @Override
+    public boolean hasNext() {
+        if (nextToken != null) return true;
+        if (finished) return false;
+
+        try {
+            nextToken = scanner.nextToken();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (nextToken == null) finished = true;
+        return nextToken != null;
+    }
+
+    /**
+     * 获取下一个Token
+     *
+     * @throws NoSuchElementException 输入已经切分完
+     * @throws UncheckedIOException   读取输入出错
+     */
+    @Override
+    public Token next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        Token token = nextToken;
+        nextToken = null;
+        return token;
+    }
+
+    /**
+     * 将剩余的Token转换为顺序的java.util.stream.Stream，流中的Token同样按需切分
+     *
+     * @return Token流
+     */
+    public Stream<Token> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
@@ -2,9 +2,19 @@ package mylex.LexAnalyzer;
 
 import mylex.LexAnalyzer.dfa.DFA;
 import mylex.LexAnalyzer.dfa.DFAState;
+import mylex.vo.Pattern;
 import mylex.vo.Token;
+import mylex.vo.TokenTypeTable;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class Tokenizer {
 
@@ -13,16 +23,49 @@ public class Tokenizer {
      */
     private List<DFA> dfaList;
 
+    /**
+     * 由所有Pattern合并而成的最简DFA，接受状态上记录了优先级最高的Pattern；按Pattern分开构造时为null
+     */
+    private DFA combinedDFA;
+
+    /**
+     * 由声明的Pattern按顺序构成的Token类型表，切分出的Token由类型编号从表中查出名字
+     */
+    private TokenTypeTable typeTable;
+
+    /**
+     * 供不基于DFA状态图的词法分析器使用
+     */
+    protected Tokenizer() {
+    }
+
     public Tokenizer(List<DFA> dfaList) {
         this.dfaList = dfaList;
+        List<Pattern> patterns = new ArrayList<>();
+        for (DFA dfa : dfaList) {
+            patterns.add(dfa.getPattern());
+        }
+        typeTable = new TokenTypeTable(patterns);
+    }
+
+    /**
+     * 基于合并后的DFA构造词法分析器，每读入一个字符只需进行一次状态转换
+     *
+     * @param combinedDFA 所有Pattern合并后的最简DFA
+     * @param patterns    声明的所有Pattern，Token的类型编号为Pattern在其中的下标，与TransitionTable相同
+     */
+    public Tokenizer(DFA combinedDFA, List<Pattern> patterns) {
+        this.combinedDFA = combinedDFA;
+        typeTable = new TokenTypeTable(patterns);
     }
 
     /**
-     * 根据用户输入的字符串，获取其中所有的Token
+     * 根据用户输入的字符串，获取其中所有的Token，标记为skip的Pattern匹配的词素不输出
      *
      * @return 字符流中的Token序列
      */
     public List<Token> getTokens(String input) {
+        if (combinedDFA != null) return getTokensByCombinedDFA(input);
 
         StringBuilder sb = new StringBuilder();
         List<Token> tokens = new ArrayList<>();
@@ -40,7 +83,7 @@ public class Tokenizer {
                 DFAState curState = entry.getValue();
                 int key = entry.getKey();
                 if (curState != null) {
-                    DFAState nextState = curState.move(c);
+                    DFAState nextState = dfaList.get(key).move(curState, c);
                     //如果nextState为空，说明对于该输入，此DFA没有对应的接受状态
                     if (nextState == null) {
                         if (nextStatesMap.get(key) != null) nextStatesMap.remove(key);
@@ -50,11 +93,12 @@ public class Tokenizer {
 
             //检查下一个状态映射是否为空，说明当前状态映射中的第一个不为空的状态为此词素的接受状态
             if (nextStatesMap.isEmpty()) {
-                for (int i = 0; i < curStatesMap.size(); i++) {
+                //按DFA的下标从小到大检查，已经到达死状态的DFA不在映射中
+                for (int i : curStatesMap.keySet()) {
                     DFAState curState = curStatesMap.get(i);
                     if (curState != null && curState.isEndState()) {
                         //当前状态为最长匹配，优先级最高的接受状态
-                        tokens.add(new Token(dfaList.get(i).getPattern().name, sb.toString()));
+                        if (!dfaList.get(i).getPattern().skip) tokens.add(new Token(typeTable, i, sb.toString(), -1));
 
                         //清空StringBuilder
                         sb.delete(0, sb.length());
@@ -84,14 +128,127 @@ public class Tokenizer {
             DFAState curState = entry.getValue();
             int key = entry.getKey();
             if (curState != null && curState.isEndState()) {
-                tokens.add(new Token(dfaList.get(key).getPattern().name, sb.toString()));
+                if (!dfaList.get(key).getPattern().skip) tokens.add(new Token(typeTable, key, sb.toString(), -1));
                 endState = curState;
+                //只取优先级最高的接受状态
+                break;
             }
         }
 
         assert endState != null : ": 最后的状态不在结束状态上" + sb.toString() + "无法解析";
 
-        assert tokens.size() > 0 : "解析出来的Token个数不可能为0";
+        return tokens;
+    }
+
+    /**
+     * 按需获取输入中的Token，此实现先切分出全部Token再逐个返回，基于转换表的词法分析器每次只扫描到下一个Token为止
+     *
+     * @param input 输入的字符序列
+     * @return Token迭代器
+     */
+    public TokenStream tokenStream(CharSequence input) {
+        Iterator<Token> tokens = getTokens(input.toString()).iterator();
+        return new TokenStream(() -> tokens.hasNext() ? tokens.next() : null);
+    }
+
+    /**
+     * 按需从字符流中获取Token，此实现先读入全部输入再切分，基于转换表的词法分析器以固定大小的缓冲区按需读取
+     *
+     * @param reader 输入的字符流
+     * @return Token迭代器
+     */
+    public TokenStream tokenStream(Reader reader) {
+        List<Token> tokens = new ArrayList<>();
+        try {
+            tokenize(reader, tokens::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Iterator<Token> iterator = tokens.iterator();
+        return new TokenStream(() -> iterator.hasNext() ? iterator.next() : null);
+    }
+
+    /**
+     * 从字符流中读取输入，每切分出一个Token就交给handler处理
+     * 此实现先读入全部输入再切分，基于转换表的词法分析器会以固定大小的缓冲区流式读取
+     *
+     * @param reader  输入的字符流
+     * @param handler Token的处理者
+     */
+    public void tokenize(Reader reader, Consumer<Token> handler) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[8192];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, read);
+        }
+        if (sb.length() == 0) return;
+
+        for (Token token : getTokens(sb.toString())) {
+            handler.accept(token);
+        }
+    }
+
+    /**
+     * 从字节通道中读取输入，按指定的字符集解码后切分Token，每切分出一个Token就交给handler处理
+     *
+     * @param channel 输入的字节通道
+     * @param charset 输入的字符集
+     * @param handler Token的处理者
+     */
+    public void tokenize(ReadableByteChannel channel, Charset charset, Consumer<Token> handler) throws IOException {
+        tokenize(Channels.newReader(channel, charset.newDecoder(), -1), handler);
+    }
+
+    /**
+     * 通过内存映射读取文件，按指定的字符集解码后切分Token，每切分出一个Token就交给handler处理，
+     * 文件按窗口分段映射，Token的位置使用long表示，故支持超过2GB的文件
+     *
+     * @param path    需要解析的文件
+     * @param charset 文件的字符集
+     * @param handler Token的处理者
+     */
+    public void tokenize(Path path, Charset charset, Consumer<Token> handler) throws IOException {
+        try (Reader reader = new MappedFileReader(path, charset)) {
+            tokenize(reader, handler);
+        }
+    }
+
+    /**
+     * 在合并后的DFA上按最长匹配获取所有Token，DFA无法继续转换时回退到最后一次经过的接受状态
+     * 标记为skip的Pattern匹配的词素不输出
+     *
+     * @param input 输入的字符串
+     * @return 字符流中的Token序列
+     */
+    private List<Token> getTokensByCombinedDFA(String input) {
+        List<Token> tokens = new ArrayList<>();
+
+        int lexemeBegin = 0;
+        while (lexemeBegin < input.length()) {
+            DFAState curState = combinedDFA.getStartState();
+            //最后一次经过的接受状态所接受的Pattern，以及对应词素的结束位置
+            Pattern lastPattern = null;
+            int lastEnd = lexemeBegin;
+
+            for (int forward = lexemeBegin; forward < input.length(); forward++) {
+                curState = combinedDFA.move(curState, input.charAt(forward));
+                if (curState == null) break;
+                if (curState.isEndState()) {
+                    lastPattern = curState.getPattern();
+                    lastEnd = forward + 1;
+                }
+            }
+
+            assert lastPattern != null : ": " + input.substring(lexemeBegin) + "无法解析";
+            if (lastPattern == null) break;
+
+            if (!lastPattern.skip) {
+                tokens.add(new Token(typeTable, typeTable.getId(lastPattern.name), input.substring(lexemeBegin, lastEnd), lexemeBegin));
+            }
+            lexemeBegin = lastEnd;
+        }
+
         return tokens;
     }
 }
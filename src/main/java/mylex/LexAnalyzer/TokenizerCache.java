@@ -0,0 +1,160 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.LexAnalyzer.dfa.TransitionTableIO;
+import mylex.vo.Pattern;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+
+/**
+ * 编译后转换表的磁盘缓存，以Pattern序列（名字、正则表达式、优先级、是否跳过）和编译器版本的SHA-256作为键
+ * 命中时直接映射缓存文件加载转换表，不再构造NFA和DFA；未命中时编译并写入缓存
+ * 写入时先写临时文件再原子地重命名，多个进程同时编译同一组Pattern时不会读到写了一半的文件
+ */
+public class TokenizerCache {
+
+    private static Logger logger = Logger.getLogger(TokenizerCache.class.getName());
+
+    /**
+     * 编译器版本，NFA、DFA的构造或最小化的结果发生变化时递增，使旧的缓存失效
+     */
+    public static final int COMPILER_VERSION = 2;
+
+    /**
+     * 缓存文件的扩展名
+     */
+    private static final String SUFFIX = ".mlex";
+
+    /**
+     * 缓存目录
+     */
+    private Path directory;
+
+    private LexAnalyzer lexAnalyzer;
+
+    public TokenizerCache(Path directory) {
+        this.directory = directory;
+        lexAnalyzer = new LexAnalyzer();
+    }
+
+    /**
+     * 默认的缓存目录，可以通过系统属性mylex.cache.dir指定，否则为 用户目录/.mylex/cache
+     */
+    public static Path defaultDirectory() {
+        String directory = System.getProperty("mylex.cache.dir");
+        if (directory != null) return Paths.get(directory);
+        return Paths.get(System.getProperty("user.home"), ".mylex", "cache");
+    }
+
+    /**
+     * 获取Pattern编译后的词法分析器，缓存命中时不需要编译
+     *
+     * @param patterns 解析.l文件后的所有模式
+     * @return 词法分析器
+     */
+    public Tokenizer createTokenizer(List<Pattern> patterns) {
+        return new CompiledTokenizer(getTable(patterns));
+    }
+
+    /**
+     * 获取Pattern编译后的转换表，缓存命中时直接加载，否则编译并写入缓存
+     * 缓存目录无法读写或缓存文件损坏时只记录日志，不影响编译
+     *
+     * @param patterns 解析.l文件后的所有模式
+     * @return 转换表
+     */
+    public TransitionTable getTable(List<Pattern> patterns) {
+        Path file = directory.resolve(key(patterns) + SUFFIX);
+
+        if (Files.isRegularFile(file)) {
+            try {
+                TransitionTable table = TransitionTableIO.read(file);
+                logger.info("从缓存加载转换表：" + file);
+                return table;
+            } catch (IOException | RuntimeException e) {
+                //损坏的缓存文件不应使编译失败，重新编译后会覆盖它
+                logger.warn("缓存文件无法读取，重新编译：" + file, e);
+            }
+        }
+
+        TransitionTable table = lexAnalyzer.compile(patterns);
+        try {
+            write(table, file);
+            logger.info("转换表已写入缓存：" + file);
+        } catch (IOException e) {
+            logger.warn("转换表无法写入缓存：" + file, e);
+        }
+        return table;
+    }
+
+    /**
+     * 先写入同一目录下的临时文件，再原子地重命名为缓存文件
+     */
+    private void write(TransitionTable table, Path file) throws IOException {
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            TransitionTableIO.write(table, tempFile);
+            try {
+                Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * 计算缓存的键：编译器版本、文件格式版本和Pattern序列的SHA-256
+     *
+     * @param patterns 所有的Pattern
+     * @return 十六进制的哈希值
+     */
+    static String key(List<Pattern> patterns) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(COMPILER_VERSION);
+            out.writeInt(TransitionTableIO.VERSION);
+            out.writeInt(patterns.size());
+            for (Pattern pattern : patterns) {
+                writeString(out, pattern.name);
+                writeString(out, pattern.regularExpression);
+                out.writeInt(pattern.precedence);
+                out.writeBoolean(pattern.skip);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] hash;
+        try {
+            hash = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        StringBuilder sb = new StringBuilder();
+        for (byte b : hash) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 写入字节数和字节，使不同的Pattern序列不会拼接出相同的字节流
+     */
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
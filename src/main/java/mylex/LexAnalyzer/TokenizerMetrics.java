@@ -0,0 +1,167 @@
+package mylex.LexAnalyzer;
+
+import mylex.vo.Pattern;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 词法分析器的运行时指标，包括吞吐量、每个Pattern的匹配次数、词素长度直方图和回退次数
+ * 计数器使用LongAdder，多个线程同时扫描时各自累加到不同的分段上，扫描过程中也可以随时读取
+ * 可以注册到JMX的MBeanServer上供监控系统采集
+ */
+public class TokenizerMetrics implements TokenizerMetricsMXBean {
+
+    /**
+     * 直方图的桶数，int范围内的长度都能落入其中一个桶
+     */
+    private static final int HISTOGRAM_SIZE = 32;
+
+    private final String[] patternNames;
+
+    private final LongAdder charCount = new LongAdder();
+
+    private final LongAdder tokenCount = new LongAdder();
+
+    private final LongAdder backtrackCount = new LongAdder();
+
+    private final LongAdder backtrackedCharCount = new LongAdder();
+
+    /**
+     * 下标为Pattern编号
+     */
+    private final LongAdder[] patternCounts;
+
+    /**
+     * 第i个桶记录长度在[2^i, 2^(i+1))之间的词素个数
+     */
+    private final LongAdder[] lexemeLengths;
+
+    /**
+     * 开始计数的时间
+     */
+    private volatile long startNanos;
+
+    public TokenizerMetrics(List<Pattern> patterns) {
+        patternNames = new String[patterns.size()];
+        patternCounts = new LongAdder[patterns.size()];
+        for (int i = 0; i < patternNames.length; i++) {
+            patternNames[i] = patterns.get(i).name;
+            patternCounts[i] = new LongAdder();
+        }
+        lexemeLengths = new LongAdder[HISTOGRAM_SIZE];
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            lexemeLengths[i] = new LongAdder();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * 记录切分出的一个Token，由扫描器在每个词素确定后调用
+     *
+     * @param patternID    Token对应的Pattern编号
+     * @param length       词素长度
+     * @param overscanned  越过词素结束位置后仍在DFA非死状态上读入的字符数，大于0说明发生了回退
+     */
+    void recordToken(int patternID, int length, int overscanned) {
+        charCount.add(length);
+        tokenCount.increment();
+        patternCounts[patternID].increment();
+        lexemeLengths[31 - Integer.numberOfLeadingZeros(length)].increment();
+        if (overscanned > 0) {
+            backtrackCount.increment();
+            backtrackedCharCount.add(overscanned);
+        }
+    }
+
+    /**
+     * 注册到平台的MBeanServer上
+     *
+     * @param name MBean的名字，例如"mylex:type=TokenizerMetrics,name=java"
+     */
+    public void register(String name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+    }
+
+    @Override
+    public long getCharCount() {
+        return charCount.sum();
+    }
+
+    @Override
+    public long getTokenCount() {
+        return tokenCount.sum();
+    }
+
+    @Override
+    public long getBacktrackCount() {
+        return backtrackCount.sum();
+    }
+
+    @Override
+    public long getBacktrackedCharCount() {
+        return backtrackedCharCount.sum();
+    }
+
+    @Override
+    public double getCharsPerSecond() {
+        return perSecond(charCount.sum());
+    }
+
+    @Override
+    public double getTokensPerSecond() {
+        return perSecond(tokenCount.sum());
+    }
+
+    @Override
+    public Map<String, Long> getPatternCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < patternNames.length; i++) {
+            counts.merge(patternNames[i], patternCounts[i].sum(), Long::sum);
+        }
+        return counts;
+    }
+
+    /**
+     * 获取某个Pattern匹配到的Token数
+     *
+     * @param patternID Pattern编号
+     */
+    public long getPatternCount(int patternID) {
+        return patternCounts[patternID].sum();
+    }
+
+    @Override
+    public long[] getLexemeLengthHistogram() {
+        long[] histogram = new long[HISTOGRAM_SIZE];
+        for (int i = 0; i < HISTOGRAM_SIZE; i++) {
+            histogram[i] = lexemeLengths[i].sum();
+        }
+        return histogram;
+    }
+
+    @Override
+    public void reset() {
+        charCount.reset();
+        tokenCount.reset();
+        backtrackCount.reset();
+        backtrackedCharCount.reset();
+        for (LongAdder count : patternCounts) {
+            count.reset();
+        }
+        for (LongAdder count : lexemeLengths) {
+            count.reset();
+        }
+        startNanos = System.nanoTime();
+    }
+
+    private double perSecond(long count) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed <= 0 ? 0 : count * 1e9 / elapsed;
+    }
+}
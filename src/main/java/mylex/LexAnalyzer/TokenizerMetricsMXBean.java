@@ -0,0 +1,54 @@
+package mylex.LexAnalyzer;
+
+import java.util.Map;
+
+/**
+ * 词法分析器运行时指标的JMX接口
+ */
+public interface TokenizerMetricsMXBean {
+
+    /**
+     * 已切分的字符总数
+     */
+    long getCharCount();
+
+    /**
+     * 已切分的Token总数
+     */
+    long getTokenCount();
+
+    /**
+     * 扫描时越过最后一个接受状态后又回退的次数
+     */
+    long getBacktrackCount();
+
+    /**
+     * 回退时重新扫描的字符总数
+     */
+    long getBacktrackedCharCount();
+
+    /**
+     * 自创建或上次重置以来平均每秒切分的字符数
+     */
+    double getCharsPerSecond();
+
+    /**
+     * 自创建或上次重置以来平均每秒切分的Token数
+     */
+    double getTokensPerSecond();
+
+    /**
+     * 每个Pattern匹配到的Token数，按Pattern的声明顺序排列
+     */
+    Map<String, Long> getPatternCounts();
+
+    /**
+     * 词素长度的直方图，第i个元素是长度在[2^i, 2^(i+1))之间的词素个数
+     */
+    long[] getLexemeLengthHistogram();
+
+    /**
+     * 清零所有计数
+     */
+    void reset();
+}
@@ -0,0 +1,59 @@
+package mylex.LexAnalyzer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 将UTF-8编码的字节作为Token的输入，下标为字节位置
+ * 字节级扫描得到的Token只记录词素的字节位置，调用Token.getValue时才通过subSequence解码词素
+ */
+class Utf8Source implements CharSequence {
+
+    private final ByteBuffer bytes;
+
+    /**
+     * 输入在缓冲区中的开始位置
+     */
+    private final int begin;
+
+    private final int length;
+
+    Utf8Source(ByteBuffer bytes, int begin, int length) {
+        this.bytes = bytes;
+        this.begin = begin;
+        this.length = length;
+    }
+
+    /**
+     * 输入的字节数
+     */
+    @Override
+    public int length() {
+        return length;
+    }
+
+    /**
+     * 按字节访问，只对ASCII字符有意义
+     */
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes.get(begin + index) & 0xFF);
+    }
+
+    /**
+     * 解码[start, end)之间的字节
+     */
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        byte[] lexeme = new byte[end - start];
+        for (int i = 0; i < lexeme.length; i++) {
+            lexeme[i] = bytes.get(begin + start + i);
+        }
+        return new String(lexeme, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return subSequence(0, length).toString();
+    }
+}
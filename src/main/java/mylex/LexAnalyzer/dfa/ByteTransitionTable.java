@@ -0,0 +1,193 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.vo.Pattern;
+import mylex.vo.TokenTypeTable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 字节级的UTF-8转换表，由字符级的转换表展开得到，可以直接在UTF-8编码的字节上扫描，不需要解码
+ * 每条字符转换按该字符的UTF-8编码展开为一串字节转换，多字节编码的中间字节经过新增的非接受状态，
+ * 从同一状态出发、编码前缀相同的字符共用中间状态
+ * 原转换表中的状态编号保持不变，新增的中间状态编号在其后，开始状态仍为0
+ * 补充字符在字符级的转换表中是高代理字符和低代理字符的两次转换，展开时合并为其4字节UTF-8编码上的转换；
+ * 单独的代理字符在UTF-8中没有对应的编码，合法的UTF-8输入不会经过只由单独代理字符构成的转换
+ */
+public class ByteTransitionTable {
+
+    /**
+     * 每个状态占256列，下标为 状态 * 256 + 无符号字节
+     */
+    public static final int COLUMN_COUNT = 256;
+
+    /**
+     * 转换表
+     */
+    private int[] transitions;
+
+    /**
+     * 每个状态接受的Pattern编号，非接受状态为TransitionTable.NO_PATTERN
+     */
+    private int[] acceptPatterns;
+
+    private List<Pattern> patterns;
+
+    /**
+     * Token类型表，类型编号即Pattern的编号
+     */
+    private TokenTypeTable typeTable;
+
+    /**
+     * 状态数，包括新增的中间状态
+     */
+    private int stateCount;
+
+    /**
+     * 将字符级的转换表展开为字节级的转换表
+     *
+     * @param table 字符级的转换表
+     */
+    public ByteTransitionTable(TransitionTable table) {
+        patterns = table.getPatterns();
+        typeTable = table.getTypeTable();
+        int[] charClasses = table.getCharClasses();
+        int classCount = table.getClassCount();
+        int[] charTransitions = table.getTransitions();
+
+        stateCount = table.getStateCount();
+        transitions = new int[stateCount * COLUMN_COUNT];
+        Arrays.fill(transitions, TransitionTable.DEAD_STATE);
+        acceptPatterns = Arrays.copyOf(table.getAcceptPatterns(), stateCount);
+
+        //(源状态 << 8 | 字节) -> 中间状态
+        Map<Long, Integer> intermediateStates = new HashMap<>();
+        char[] c = new char[1];
+        List<Character> highSurrogates = new ArrayList<>();
+        List<Character> lowSurrogates = new ArrayList<>();
+        for (int ch = 0; ch < charClasses.length; ch++) {
+            if (charClasses[ch] == 0) continue;
+            //代理字符单独出现时没有UTF-8编码，成对的代理字符在后面按补充字符展开
+            if (Character.isHighSurrogate((char) ch)) {
+                highSurrogates.add((char) ch);
+                continue;
+            }
+            if (Character.isLowSurrogate((char) ch)) {
+                lowSurrogates.add((char) ch);
+                continue;
+            }
+            c[0] = (char) ch;
+            byte[] bytes = new String(c).getBytes(StandardCharsets.UTF_8);
+
+            for (int state = 0; state < table.getStateCount(); state++) {
+                int destState = charTransitions[state * classCount + charClasses[ch]];
+                if (destState == TransitionTable.DEAD_STATE) continue;
+                addPath(state, bytes, destState, intermediateStates);
+            }
+        }
+
+        //状态经高代理字符、再经低代理字符的两次转换，合并为该补充字符的4字节编码上的一串转换
+        byte[] bytes = new byte[4];
+        for (int state = 0; state < table.getStateCount(); state++) {
+            for (char high : highSurrogates) {
+                int middleState = charTransitions[state * classCount + charClasses[high]];
+                if (middleState == TransitionTable.DEAD_STATE) continue;
+                for (char low : lowSurrogates) {
+                    int destState = charTransitions[middleState * classCount + charClasses[low]];
+                    if (destState == TransitionTable.DEAD_STATE) continue;
+                    int codePoint = Character.toCodePoint(high, low);
+                    bytes[0] = (byte) (0xF0 | codePoint >> 18);
+                    bytes[1] = (byte) (0x80 | (codePoint >> 12 & 0x3F));
+                    bytes[2] = (byte) (0x80 | (codePoint >> 6 & 0x3F));
+                    bytes[3] = (byte) (0x80 | (codePoint & 0x3F));
+                    addPath(state, bytes, destState, intermediateStates);
+                }
+            }
+        }
+
+        transitions = Arrays.copyOf(transitions, stateCount * COLUMN_COUNT);
+        acceptPatterns = Arrays.copyOf(acceptPatterns, stateCount);
+    }
+
+    /**
+     * 添加从源状态经一个字符的UTF-8编码到达目的状态的一串字节转换，
+     * 前面的字节经过中间状态，最后一个字节到达目的状态
+     * 从同一状态出发、编码前缀相同的字符共用中间状态，中间状态只对应编码前缀，不会混淆不同字符的转换
+     *
+     * @param state              源状态
+     * @param bytes              字符的UTF-8编码
+     * @param destState          目的状态
+     * @param intermediateStates (源状态 << 8 | 字节) -> 中间状态
+     */
+    private void addPath(int state, byte[] bytes, int destState, Map<Long, Integer> intermediateStates) {
+        int current = state;
+        for (int i = 0; i < bytes.length - 1; i++) {
+            int b = bytes[i] & 0xFF;
+            long key = ((long) current << 8) | b;
+            Integer next = intermediateStates.get(key);
+            if (next == null) {
+                next = addState();
+                intermediateStates.put(key, next);
+                transitions[current * COLUMN_COUNT + b] = next;
+            }
+            current = next;
+        }
+        transitions[current * COLUMN_COUNT + (bytes[bytes.length - 1] & 0xFF)] = destState;
+    }
+
+    /**
+     * 新增一个非接受的中间状态
+     *
+     * @return 新状态的编号
+     */
+    private int addState() {
+        int state = stateCount++;
+        if (stateCount * COLUMN_COUNT > transitions.length) {
+            int oldLength = transitions.length;
+            transitions = Arrays.copyOf(transitions, Math.max(oldLength * 2, stateCount * COLUMN_COUNT));
+            Arrays.fill(transitions, oldLength, transitions.length, TransitionTable.DEAD_STATE);
+            acceptPatterns = Arrays.copyOf(acceptPatterns, transitions.length / COLUMN_COUNT);
+        }
+        acceptPatterns[state] = TransitionTable.NO_PATTERN;
+        return state;
+    }
+
+    /**
+     * 根据状态和输入字节找到后继状态
+     *
+     * @param state 当前状态
+     * @param b     输入字节
+     * @return 后继状态，没有则返回DEAD_STATE
+     */
+    public int move(int state, byte b) {
+        return transitions[state * COLUMN_COUNT + (b & 0xFF)];
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int[] getTransitions() {
+        return transitions;
+    }
+
+    public int[] getAcceptPatterns() {
+        return acceptPatterns;
+    }
+
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    public TokenTypeTable getTypeTable() {
+        return typeTable;
+    }
+
+    public boolean[] getSkipPatterns() {
+        return typeTable.getSkipFlags();
+    }
+}
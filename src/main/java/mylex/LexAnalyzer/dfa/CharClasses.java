@@ -0,0 +1,132 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.LexAnalyzer.nfa.CompactNFA;
+import mylex.LexAnalyzer.nfa.NFA;
+
+import java.util.*;
+
+/**
+ * 字符等价类，将字母表划分为若干组，同一组中的字符在NFA中经过的边完全相同，
+ * 因此在所有Pattern中的行为相同，构造DFA和转换表时每组只需处理一个代表字符
+ * 等价类编号从1开始，编号0表示字母表之外的字符
+ */
+public class CharClasses {
+
+    /**
+     * 字符到等价类编号的映射，超出数组长度的字符属于等价类0
+     */
+    private int[] classOf;
+
+    /**
+     * 每个等价类的代表字符，下标为等价类编号，下标0不使用
+     */
+    private char[] representatives;
+
+    /**
+     * 根据NFA中的边划分字母表，两个字符等价当且仅当NFA中以它们为标号的边的（源状态，目的状态）集合相同
+     *
+     * @param nfa NFA
+     */
+    public CharClasses(NFA nfa) {
+        this(new CompactNFA(nfa));
+    }
+
+    public CharClasses(CompactNFA nfa) {
+        //记录每个字符作为标号出现的所有边，边用源状态和目的状态的编号表示
+        Map<Character, Set<Long>> signatures = new TreeMap<>();
+        for (Character c : nfa.getInputAlphabet()) {
+            signatures.put(c, new HashSet<>());
+        }
+
+        int[] labeledOffsets = nfa.getLabeledOffsets();
+        int[] labeledTargets = nfa.getLabeledTargets();
+        char[] labels = nfa.getLabels();
+        for (int state = 0; state < nfa.getStateCount(); state++) {
+            for (int edge = labeledOffsets[state]; edge < labeledOffsets[state + 1]; edge++) {
+                long edgeKey = ((long) state << 32) | labeledTargets[edge];
+                signatures.computeIfAbsent(labels[edge], label -> new HashSet<>()).add(edgeKey);
+            }
+        }
+
+        //按字符从小到大分配等价类编号，边集合相同的字符分到同一个等价类
+        Map<Set<Long>, Integer> classIDs = new HashMap<>();
+        List<Character> representativeList = new ArrayList<>();
+        representativeList.add('\0');
+        int maxChar = 0;
+        for (Character c : signatures.keySet()) {
+            maxChar = Math.max(maxChar, c);
+        }
+        classOf = new int[maxChar + 1];
+        for (Map.Entry<Character, Set<Long>> entry : signatures.entrySet()) {
+            Integer classID = classIDs.get(entry.getValue());
+            if (classID == null) {
+                classID = representativeList.size();
+                classIDs.put(entry.getValue(), classID);
+                representativeList.add(entry.getKey());
+            }
+            classOf[entry.getKey()] = classID;
+        }
+
+        representatives = new char[representativeList.size()];
+        for (int i = 0; i < representatives.length; i++) {
+            representatives[i] = representativeList.get(i);
+        }
+    }
+
+    /**
+     * 找到字符所属的等价类编号
+     *
+     * @param c 字符
+     * @return 等价类编号，字母表之外的字符返回0
+     */
+    public int classOf(char c) {
+        return c < classOf.length ? classOf[c] : 0;
+    }
+
+    /**
+     * 找到字符所属等价类的代表字符
+     *
+     * @param c 字符
+     * @return 代表字符，字母表之外的字符返回NFA.EPSILON
+     */
+    public char representativeOf(char c) {
+        return representatives[classOf(c)];
+    }
+
+    /**
+     * 找到等价类的代表字符
+     *
+     * @param classID 等价类编号
+     * @return 代表字符
+     */
+    public char getRepresentative(int classID) {
+        return representatives[classID];
+    }
+
+    /**
+     * 获取所有等价类的代表字符，构造DFA时只需对这些字符求转换
+     *
+     * @return 代表字符集合
+     */
+    public Set<Character> getRepresentatives() {
+        Set<Character> representativeSet = new LinkedHashSet<>();
+        for (int i = 1; i < representatives.length; i++) {
+            representativeSet.add(representatives[i]);
+        }
+        return representativeSet;
+    }
+
+    /**
+     * 等价类个数，包括字母表之外的等价类0
+     */
+    public int getClassCount() {
+        return representatives.length;
+    }
+
+    /**
+     * 字符到等价类编号的映射数组，超出数组长度的字符属于等价类0
+     */
+    public int[] getClassMap() {
+        return classOf;
+    }
+}
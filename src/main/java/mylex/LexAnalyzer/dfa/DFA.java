@@ -1,13 +1,10 @@
 package mylex.LexAnalyzer.dfa;
 
+import mylex.LexAnalyzer.nfa.CompactNFA;
 import mylex.LexAnalyzer.nfa.NFA;
-import mylex.LexAnalyzer.nfa.NFAState;
 import mylex.vo.Pattern;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
 
 public class DFA {
 
@@ -32,17 +29,43 @@ public class DFA {
     private Set<Character> inputAlphabet;
 
     /**
-     * NFA
+     * 字母表的等价类划分，DFA的边以等价类的代表字符为标号
      */
-    private NFA nfa;
+    private CharClasses charClasses;
 
     /**
-     * NFA状态集合到DFA的映射
+     * NFA的紧凑表示，NFA状态集合中的下标即紧凑表示中的状态编号
      */
-    private Map<Set<NFAState>, DFAState> dfaStateMap;
+    private CompactNFA nfa;
+
+    /**
+     * NFA状态集合到DFA的映射，NFA状态集合用NFA状态的下标组成的BitSet表示
+     */
+    private Map<BitSet, DFAState> dfaStateMap;
+
+    /**
+     * 已经加入DFA、还没有求转换的DFA状态
+     */
+    private Deque<DFAState> worklist;
+
+    /**
+     * 每个DFA状态对应的NFA状态集合，下标为DFA状态的id
+     */
+    private List<BitSet> nfaStateSets;
+
+    /**
+     * 每条带标号的NFA边的标号所在的等价类，与CompactNFA.getLabeledTargets平行
+     */
+    private int[] labeledClasses;
+
+    /**
+     * 每个NFA状态的epsilon闭包，同一个epsilon强连通分量中的状态共用一个BitSet，不能修改
+     */
+    private BitSet[] epsilonClosures;
 
     /**
      * 由于一个NFA只有唯一一个接受状态，故只有一个Pattern，故对应的DFA的接受状态也只有一个Pattern
+     * 由多个NFA合并而成的DFA此值为null，每个接受状态的Pattern记录在DFAState中
      */
     private Pattern pattern;
 
@@ -52,112 +75,309 @@ public class DFA {
     private int stateID;
 
     public DFA(NFA nfa) {
+        this(new CompactNFA(nfa));
+    }
+
+    public DFA(CompactNFA nfa) {
         states = new HashSet<>();
         endStates = new HashSet<>();
         pattern = nfa.getPattern();
 
         this.nfa = nfa;
         dfaStateMap = new HashMap<>();
+        worklist = new ArrayDeque<>();
+        nfaStateSets = new ArrayList<>();
 
         //初始化id
         stateID = 0;
 
         //DFA的字母表即是NFA的字母表
         inputAlphabet = nfa.getInputAlphabet();
+        //将字母表划分为等价类，构造DFA时只需对每个等价类的代表字符求转换
+        charClasses = new CharClasses(nfa);
+        //求出每条带标号的边所在的等价类，以及每个NFA状态的epsilon闭包
+        char[] labels = nfa.getLabels();
+        labeledClasses = new int[labels.length];
+        for (int i = 0; i < labels.length; i++) {
+            labeledClasses[i] = charClasses.classOf(labels[i]);
+        }
+        computeEpsilonClosures();
 
         //找到表示DFA开始状态的NFA集合,并将其加入到dfaStateMap中
-        Set<NFAState> nfaStates = nfa.epsilonClosureStart();
-        boolean isEndState = hasNFAEndState(nfaStates);
-        startState = new DFAState(stateID++, hasNFAEndState(nfaStates));
-        if (isEndState) endStates.add(startState);
+        BitSet nfaStateSet = (BitSet) epsilonClosures[0].clone();
+        startState = new DFAState(stateID++, findPattern(nfaStateSet));
 
         //添加初始DFA状态
-        addState(nfaStates, startState);
+        addState(nfaStateSet, startState);
     }
 
-    public DFA(Set<DFAState> states, DFAState startState, Set<DFAState> endStates, Set<Character> inputAlphabet, Pattern pattern) {
+    public DFA(Set<DFAState> states, DFAState startState, Set<DFAState> endStates, Set<Character> inputAlphabet,
+               CharClasses charClasses, Pattern pattern) {
         this.states = states;
         this.startState = startState;
         this.endStates = endStates;
         this.inputAlphabet = inputAlphabet;
+        this.charClasses = charClasses;
         this.pattern = pattern;
     }
 
     /**
-     * DFA的转换函数
+     * 将多个DFA合并为一个接受其中任意一个DFA所接受的串的DFA
+     * 把每个DFA看作没有epsilon边的NFA，新的开始状态经epsilon边到达各DFA的开始状态，得到的紧凑NFA再用子集构造法确定化
+     * 每条边按原DFA的等价类展开为该类中每个字符上的边；接受状态按DFA的顺序排列，precedence相同时排在前面的DFA优先
+     *
+     * @param dfaList 需要合并的DFA，状态id为0..n-1
+     * @return 合并后的DFA，还需要调用Dtran构造转换
      */
-    public DFA Dtran() {
+    public static DFA combine(List<DFA> dfaList) {
+        assert !dfaList.isEmpty() : DFA.class.getName() + ": 需要合并的DFA序列为空";
+
+        //状态0为新的开始状态，第i个DFA的状态编号从offsets[i]开始
+        int[] offsets = new int[dfaList.size() + 1];
+        offsets[0] = 1;
+        List<DFAState[]> statesById = new ArrayList<>();
+        List<char[][]> classCharsList = new ArrayList<>();
+        Set<Character> inputAlphabet = new HashSet<>();
+        int labeledCount = 0;
+        for (int i = 0; i < dfaList.size(); i++) {
+            DFA dfa = dfaList.get(i);
+            DFAState[] states = new DFAState[dfa.getStates().size()];
+            for (DFAState state : dfa.getStates()) {
+                assert state.getID() < states.length && states[state.getID()] == null : ": DFA状态的id不连续";
+                states[state.getID()] = state;
+            }
+            statesById.add(states);
+            offsets[i + 1] = offsets[i] + states.length;
+
+            char[][] classChars = classChars(dfa.getCharClasses());
+            classCharsList.add(classChars);
+            for (DFAState state : states) {
+                for (Character c : state.getAlphabet()) {
+                    labeledCount += classChars[dfa.getCharClasses().classOf(c)].length;
+                }
+            }
+            inputAlphabet.addAll(dfa.getInputAlphabet());
+        }
+        int stateCount = offsets[dfaList.size()];
+
+        //只有新的开始状态有epsilon边
+        int[] epsilonOffsets = new int[stateCount + 1];
+        Arrays.fill(epsilonOffsets, 1, stateCount + 1, dfaList.size());
+        int[] epsilonTargets = new int[dfaList.size()];
+
+        int[] labeledOffsets = new int[stateCount + 1];
+        int[] labeledTargets = new int[labeledCount];
+        char[] labels = new char[labeledCount];
+        List<Integer> acceptStateList = new ArrayList<>();
+        List<Pattern> acceptPatternList = new ArrayList<>();
+        labeledCount = 0;
+        for (int i = 0; i < dfaList.size(); i++) {
+            DFA dfa = dfaList.get(i);
+            DFAState[] states = statesById.get(i);
+            char[][] classChars = classCharsList.get(i);
+            epsilonTargets[i] = offsets[i] + dfa.getStartState().getID();
+            for (DFAState state : states) {
+                int index = offsets[i] + state.getID();
+                labeledOffsets[index] = labeledCount;
+                for (Map.Entry<Character, DFAState> edge : state.getAdjacentList().entrySet()) {
+                    int destState = offsets[i] + edge.getValue().getID();
+                    for (char c : classChars[dfa.getCharClasses().classOf(edge.getKey())]) {
+                        labeledTargets[labeledCount] = destState;
+                        labels[labeledCount++] = c;
+                    }
+                }
+                if (state.isEndState()) {
+                    acceptStateList.add(index);
+                    acceptPatternList.add(state.getPattern());
+                }
+            }
+        }
+        labeledOffsets[stateCount] = labeledCount;
 
-        while (!allLabeled()) {
+        int[] acceptStates = new int[acceptStateList.size()];
+        for (int i = 0; i < acceptStates.length; i++) {
+            acceptStates[i] = acceptStateList.get(i);
+        }
+        Pattern[] acceptPatterns = acceptPatternList.toArray(new Pattern[0]);
 
-            Set<NFAState> nfaStatesNotLabeled = findNFAStateNotLabeled();
-            DFAState stateNotLabeled = dfaStateMap.get(nfaStatesNotLabeled);
-            assert stateNotLabeled != null : DFA.class.getName() + ": 未标记的状态为空";
+        return new DFA(new CompactNFA(epsilonOffsets, epsilonTargets, labeledOffsets, labeledTargets, labels,
+                acceptStates, acceptPatterns, inputAlphabet, null));
+    }
 
-            //对每个输入符号label，获取新的DFAState，新状态不在状态集内，则加入状态集
-            for (Character label : inputAlphabet) {
+    /**
+     * 求出每个等价类中的所有字符，等价类0（字母表之外的字符）为空
+     *
+     * @param charClasses 字符等价类
+     * @return 下标为等价类编号的字符数组
+     */
+    private static char[][] classChars(CharClasses charClasses) {
+        int[] classMap = charClasses.getClassMap();
+        int[] counts = new int[charClasses.getClassCount()];
+        for (int classID : classMap) {
+            counts[classID]++;
+        }
+        counts[0] = 0;
 
-                //对输入符号label，获取转换后的NFA状态集合epsilon闭包
-                Set<NFAState> nfaStateSet = nfa.epsilonClosureOther(nfa.move(nfaStatesNotLabeled, label));
+        char[][] classChars = new char[counts.length][];
+        for (int classID = 0; classID < counts.length; classID++) {
+            classChars[classID] = new char[counts[classID]];
+            counts[classID] = 0;
+        }
+        for (int c = 0; c < classMap.length; c++) {
+            int classID = classMap[c];
+            if (classID != 0) classChars[classID][counts[classID]++] = (char) c;
+        }
+        return classChars;
+    }
 
-                //epsilon闭包不能为空，为空则说明对于该输入，该DFA状态没有后继状态集合
-                if (!nfaStateSet.isEmpty()) {
-                    //检查映射中是否已经存在以该NFA状态集合为键值的DFA状态,若不存在，添加新的键值对
-                    if (!dfaStateMap.containsKey(nfaStateSet)) {
-                        boolean isEndState = hasNFAEndState(nfaStateSet);
-                        DFAState u = new DFAState(stateID++, isEndState);
-                        //添加一个新的状态
-                        addState(nfaStateSet, u);
+    /**
+     * DFA的转换函数，子集构造法
+     * 新的DFA状态加入工作队列，每次取出一个状态，一次遍历其NFA状态的边求出所有等价类上的转换，
+     * 每个DFA状态只处理一次
+     */
+    public DFA Dtran() {
+        final int classCount = charClasses.getClassCount();
+        final int nfaStateCount = nfa.getStateCount();
+        final int[] labeledOffsets = nfa.getLabeledOffsets();
+        final int[] labeledTargets = nfa.getLabeledTargets();
+
+        while (!worklist.isEmpty()) {
+            DFAState stateNotLabeled = worklist.poll();
+            BitSet nfaStatesNotLabeled = nfaStateSets.get(stateNotLabeled.getID());
+
+            //对每个等价类，求转换后的NFA状态集合的epsilon闭包，即各目的状态闭包的并，没有边的等价类为null
+            BitSet[] moves = new BitSet[classCount];
+            for (int i = nfaStatesNotLabeled.nextSetBit(0); i >= 0; i = nfaStatesNotLabeled.nextSetBit(i + 1)) {
+                for (int edge = labeledOffsets[i]; edge < labeledOffsets[i + 1]; edge++) {
+                    BitSet move = moves[labeledClasses[edge]];
+                    if (move == null) move = moves[labeledClasses[edge]] = new BitSet(nfaStateCount);
+                    move.or(epsilonClosures[labeledTargets[edge]]);
+                }
+            }
 
-                        //新DFA状态是否是结束状态，若是，则将该状态加入到新DFA的接受状态集合中，且将该DFAState对应的Pattern加入映射
-                        if (isEndState) endStates.add(u);
-                    }
-                    //给当前状态新增一条通过label可达到状态u的边
-                    stateNotLabeled.addEdge(label, dfaStateMap.get(nfaStateSet));
+            //对每个等价类的代表字符label，获取新的DFAState，新状态不在状态集内，则加入状态集
+            for (int classID = 1; classID < classCount; classID++) {
+                //为空则说明对于该输入，该DFA状态没有后继状态集合
+                BitSet nfaStateSet = moves[classID];
+                if (nfaStateSet == null) continue;
+
+                //检查映射中是否已经存在以该NFA状态集合为键值的DFA状态,若不存在，添加新的键值对
+                DFAState u = dfaStateMap.get(nfaStateSet);
+                if (u == null) {
+                    //若该NFA状态集合中有接受状态，新DFA状态接受其中优先级最高的Pattern
+                    u = new DFAState(stateID++, findPattern(nfaStateSet));
+                    addState(nfaStateSet, u);
                 }
+                //给当前状态新增一条通过label可达到状态u的边
+                stateNotLabeled.addEdge(charClasses.getRepresentative(classID), u);
             }
 
-            //将映射中和DFA状态集合中，该DFA状态的标记位记为true
-            updateDFAStateLabel(nfaStatesNotLabeled);
+            stateNotLabeled.setLabeled(true);
         }
 
         return this;
     }
 
     /**
-     * 更新映射中和DFA状态集合中，该NFA状态集合对应的DFA状态的标记位
+     * 预先求出每个NFA状态的epsilon闭包，之后NFA状态集合的闭包即其中各状态闭包的并
+     * 用Tarjan算法找出epsilon边构成的强连通分量，同一分量中的状态闭包相同，共用一个BitSet；
+     * 分量按逆拓扑序完成，完成时其后继分量的闭包都已求出，分量的闭包为自身的状态并上后继分量的闭包
      */
-    private void updateDFAStateLabel(Set<NFAState> dfaStates) {
-        DFAState stateNotLabeled = dfaStateMap.get(dfaStates);
-        stateNotLabeled.setLabeled(true);
-        dfaStateMap.put(dfaStates, stateNotLabeled);
-        states.remove(stateNotLabeled);
-        states.add(stateNotLabeled);
+    private void computeEpsilonClosures() {
+        final int n = nfa.getStateCount();
+        final int[] epsilonOffsets = nfa.getEpsilonOffsets();
+        final int[] epsilonTargets = nfa.getEpsilonTargets();
+        epsilonClosures = new BitSet[n];
+
+        int[] index = new int[n];
+        int[] lowLink = new int[n];
+        Arrays.fill(index, -1);
+        boolean[] onStack = new boolean[n];
+        int[] sccStack = new int[n];
+        int sccTop = 0;
+        //显式的调用栈，以及每个状态下一条要访问的epsilon边
+        int[] callStack = new int[n];
+        int callTop = 0;
+        int[] edgeCursor = Arrays.copyOf(epsilonOffsets, n);
+        int counter = 0;
+
+        for (int root = 0; root < n; root++) {
+            if (index[root] >= 0) continue;
+            index[root] = lowLink[root] = counter++;
+            sccStack[sccTop++] = root;
+            onStack[root] = true;
+            callStack[callTop++] = root;
+
+            while (callTop > 0) {
+                int v = callStack[callTop - 1];
+                if (edgeCursor[v] < epsilonOffsets[v + 1]) {
+                    int w = epsilonTargets[edgeCursor[v]++];
+                    if (index[w] < 0) {
+                        index[w] = lowLink[w] = counter++;
+                        sccStack[sccTop++] = w;
+                        onStack[w] = true;
+                        callStack[callTop++] = w;
+                    } else if (onStack[w]) lowLink[v] = Math.min(lowLink[v], index[w]);
+                    continue;
+                }
+
+                callTop--;
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    lowLink[parent] = Math.min(lowLink[parent], lowLink[v]);
+                }
+                if (lowLink[v] != index[v]) continue;
+
+                //v是一个强连通分量的根，分量为栈中v及其之上的状态
+                int sccEnd = sccTop;
+                do {
+                    onStack[sccStack[--sccTop]] = false;
+                } while (sccStack[sccTop] != v);
+
+                BitSet closure = new BitSet(n);
+                for (int i = sccTop; i < sccEnd; i++) {
+                    int member = sccStack[i];
+                    closure.set(member);
+                    for (int edge = epsilonOffsets[member]; edge < epsilonOffsets[member + 1]; edge++) {
+                        //分量之外的目的状态所在的分量已经完成，分量之内的尚未赋值
+                        BitSet destClosure = epsilonClosures[epsilonTargets[edge]];
+                        if (destClosure != null) closure.or(destClosure);
+                    }
+                }
+                for (int i = sccTop; i < sccEnd; i++) {
+                    epsilonClosures[sccStack[i]] = closure;
+                }
+            }
+        }
     }
 
     /**
-     * 找到没被标记的DFA状态所对应的NFA状态集合
+     * 找到NFA状态集合中优先级最高的接受状态对应的Pattern
+     * precedence越小优先级越高，precedence相同时，合并时排在前面的Pattern优先
      *
-     * @return NFA状态集合
+     * @param nfaStateSet NFA状态集合
+     * @return 优先级最高的Pattern，集合中没有接受状态则返回null
      */
-    private Set<NFAState> findNFAStateNotLabeled() {
-        for (Map.Entry<Set<NFAState>, DFAState> entry : dfaStateMap.entrySet()) {
-            if (!entry.getValue().isLabeled()) return entry.getKey();
+    private Pattern findPattern(BitSet nfaStateSet) {
+        final int[] acceptStates = nfa.getAcceptStates();
+        final Pattern[] acceptPatterns = nfa.getAcceptPatterns();
+        Pattern winner = null;
+        for (int i = 0; i < acceptStates.length; i++) {
+            Pattern candidate = acceptPatterns[i];
+            if (nfaStateSet.get(acceptStates[i]) && (winner == null || candidate.precedence < winner.precedence)) {
+                winner = candidate;
+            }
         }
-        return null;
+        return winner;
     }
 
     /**
-     * 判断该NFA状态集合中是否有结束状态
+     * 获取DFA的所有状态
      *
-     * @param nfaStateSet NFA状态集合
-     * @return
+     * @return DFA的状态集合
      */
-    private boolean hasNFAEndState(Set<NFAState> nfaStateSet) {
-        for (NFAState nfaState : nfaStateSet) {
-            if (nfaState.isEndState()) return true;
-        }
-        return false;
+    public Set<DFAState> getStates() {
+        return states;
     }
 
     /**
@@ -189,15 +409,33 @@ public class DFA {
         return inputAlphabet;
     }
 
+    public CharClasses getCharClasses() {
+        return charClasses;
+    }
+
     /**
-     * 添加一个新的DFA状态
+     * 根据输入字符从状态state向后移动，先找到字符所属等价类的代表字符，再沿该代表字符的边移动
+     *
+     * @param state 当前状态
+     * @param c     输入字符
+     * @return 目的状态，没有则返回null
+     */
+    public DFAState move(DFAState state, char c) {
+        return state.move(charClasses.representativeOf(c));
+    }
+
+    /**
+     * 添加一个新的DFA状态，并加入工作队列
      *
      * @param nfaStateSet 该DFA状态对应的NFA状态集合
      * @param dfaState    DFA状态
      */
-    private void addState(Set<NFAState> nfaStateSet, DFAState dfaState) {
+    private void addState(BitSet nfaStateSet, DFAState dfaState) {
         assert !dfaStateMap.containsKey(nfaStateSet) : DFA.class.getName() + ": 映射中已经存在该NFA状态集合";
+        assert dfaState.getID() == nfaStateSets.size() : DFA.class.getName() + ": DFA状态的id不连续";
         dfaStateMap.put(nfaStateSet, dfaState);
+        nfaStateSets.add(nfaStateSet);
+        worklist.add(dfaState);
 
         //给DFA状态集合中加入该DFA状态
         states.add(dfaState);
@@ -205,23 +443,11 @@ public class DFA {
         if (dfaState.isEndState()) endStates.add(dfaState);
     }
 
-    /**
-     * 检查是否所有的Dstates都已经被标记
-     *
-     * @return 是否都被标记的布尔值
-     */
-    private boolean allLabeled() {
-        for (DFAState dfaState : states) {
-            if (!dfaState.isLabeled()) return false;
-        }
-        return true;
-    }
-
     public void printDFA() {
         assert !endStates.isEmpty() : ": DFA结束状态为空";
         startState.printDFAState();
         for (DFAState endState : endStates) {
-            System.out.println("id: " + +endState.getID() + "     pattern:" + pattern.regularExpression);
+            System.out.println("id: " + +endState.getID() + "     pattern:" + endState.getPattern().regularExpression);
         }
         System.out.println("----------------------");
         for (DFAState state : states) {
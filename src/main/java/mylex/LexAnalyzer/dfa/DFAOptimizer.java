@@ -1,14 +1,18 @@
 package mylex.LexAnalyzer.dfa;
 
+import mylex.vo.Pattern;
+
 import java.util.*;
 
+/**
+ * 用Hopcroft算法最小化DFA
+ * 状态按id编号，划分中同一组的状态在elements数组中连续存放，blockOf记录每个状态所在的组；
+ * 每次从工作表中取出一个组作为分割者，按等价类找出经一步转换进入该组的状态，把它们移到各自组的前部并分裂出去，
+ * 被分裂的组不在工作表中时只把较小的一半加入工作表，每个状态作为分割者被处理的次数为O(log n)
+ * 缺失的转换视为到达一个不出现在划分中的死状态，死状态所在的组是唯一不加入工作表的组
+ */
 public class DFAOptimizer {
 
-    /**
-     * 保存DFA状态组的划分
-     */
-    private Set<Set<DFAState>> dfaStatePartition;
-
     /**
      * 经NFA转化后的DFA对象，但是还未优化过
      */
@@ -20,20 +24,92 @@ public class DFAOptimizer {
     private Set<Character> inputAlphabet;
 
     /**
-     * 保存未优化的DFA状态集合到新DFA状态的映射
+     * 未优化的DFA状态，下标为状态id
+     */
+    private DFAState[] states;
+
+    /**
+     * 按组连续存放的状态，location为每个状态在elements中的位置
+     */
+    private int[] elements;
+
+    private int[] location;
+
+    /**
+     * 每个状态所在的组
+     */
+    private int[] blockOf;
+
+    /**
+     * 每个组在elements中的范围[blockFirst, blockEnd)
+     */
+    private int[] blockFirst;
+
+    private int[] blockEnd;
+
+    /**
+     * 每个组中已标记的状态数，已标记的状态位于组的前部
+     */
+    private int[] marked;
+
+    /**
+     * 当前的组数
      */
-    private Map<Set<DFAState>, DFAState> dfaStateMap;
+    private int blockCount;
+
+    /**
+     * 逆转换：状态i的前驱为predecessors[predecessorOffsets[i]]到predecessors[predecessorOffsets[i + 1] - 1]，
+     * predecessorClasses为对应边的等价类编号
+     */
+    private int[] predecessorOffsets;
+
+    private int[] predecessors;
+
+    private int[] predecessorClasses;
 
     public DFAOptimizer(DFA dfa) {
 
         this.dfa = dfa;
         inputAlphabet = dfa.getInputAlphabet();
-        dfaStateMap = new HashMap<>();
 
-        //初始化状态的划分，分为接受状态组和非接受状态组
-        dfaStatePartition = new HashSet<>();
-        if (!dfa.getEndStates().isEmpty()) dfaStatePartition.add(dfa.getEndStates());
-        if (!dfa.getNotEndStates().isEmpty()) dfaStatePartition.add(dfa.getNotEndStates());
+        int stateCount = dfa.getStates().size();
+        states = new DFAState[stateCount];
+        for (DFAState state : dfa.getStates()) {
+            assert state.getID() < stateCount && states[state.getID()] == null : ": DFA状态的id不连续";
+            states[state.getID()] = state;
+        }
+
+        //初始化状态的划分，分为非接受状态组和接受状态组，接受状态按照接受的Pattern再分组
+        Map<Pattern, List<Integer>> statesByPattern = new LinkedHashMap<>();
+        List<Integer> notEndStates = new ArrayList<>();
+        for (int i = 0; i < stateCount; i++) {
+            if (states[i].isEndState()) {
+                statesByPattern.computeIfAbsent(states[i].getPattern(), pattern -> new ArrayList<>()).add(i);
+            } else {
+                notEndStates.add(i);
+            }
+        }
+        List<List<Integer>> initialBlocks = new ArrayList<>(statesByPattern.values());
+        if (!notEndStates.isEmpty()) initialBlocks.add(notEndStates);
+
+        elements = new int[stateCount];
+        location = new int[stateCount];
+        blockOf = new int[stateCount];
+        blockFirst = new int[stateCount];
+        blockEnd = new int[stateCount];
+        marked = new int[stateCount];
+        int position = 0;
+        for (List<Integer> block : initialBlocks) {
+            blockFirst[blockCount] = position;
+            for (int state : block) {
+                elements[position] = state;
+                location[state] = position++;
+                blockOf[state] = blockCount;
+            }
+            blockEnd[blockCount++] = position;
+        }
+
+        buildPredecessors();
     }
 
     /**
@@ -46,199 +122,161 @@ public class DFAOptimizer {
         //先将状态组划分为最小划分的组
         partitionState();
 
-        //建立未优化的DFA状态集合到新DFA状态的映射
+        //按原状态id的顺序给每组分配新DFA状态，开始状态所在的组最先分配
+        DFAState[] newStates = new DFAState[blockCount];
+        Set<DFAState> optimizedStates = new LinkedHashSet<>();
+        Set<DFAState> endStates = new LinkedHashSet<>();
         int id = 0;
-        //对于每一对DFA状态集合--新DFA状态，建立一对键值对
-        for (Set<DFAState> stateSet : dfaStatePartition) {
-            dfaStateMap.put(stateSet, new DFAState(id++, hasDFAEndState(stateSet)));
+        for (int i = 0; i < states.length; i++) {
+            int block = blockOf[i];
+            if (newStates[block] != null) continue;
+            //同一组的状态接受相同的Pattern
+            newStates[block] = new DFAState(id++, states[i].getPattern());
+            optimizedStates.add(newStates[block]);
+            if (newStates[block].isEndState()) endStates.add(newStates[block]);
         }
 
-        //为新的DFA状态添加边
-        for (Map.Entry<Set<DFAState>, DFAState> entry : dfaStateMap.entrySet()) {
-            assert !entry.getKey().isEmpty() : DFAOptimizer.class.getName() + ": DFA状态集合为空（constructOpimizedDFA）";
-            //从未优化的DFA状态集合中任意抽取一个DFAState作为源状态
-            DFAState srcState = entry.getKey().iterator().next();
-
-            //对于该源状态中的输入字母表进行遍历
-            for (Character c : srcState.getAlphabet()) {
-
-                //找到这个DFA状态经c转换后到达的DFA状态所属的状态集合
-                Set<DFAState> destDFAStateSet = move(srcState, c);
-                assert dfaStateMap.containsKey(destDFAStateSet);
-
-                addEdge(entry.getKey(), dfaStateMap.get(destDFAStateSet), c);
+        //为新的DFA状态添加边，从每组中任意抽取一个状态作为源状态
+        for (int block = 0; block < blockCount; block++) {
+            DFAState srcState = states[elements[blockFirst[block]]];
+            for (Map.Entry<Character, DFAState> edge : srcState.getAdjacentList().entrySet()) {
+                newStates[block].addEdge(edge.getKey(), newStates[blockOf[edge.getValue().getID()]]);
             }
         }
 
-        //装载新的DFA
-        return loadOptimizedDFA();
+        DFAState startState = newStates[blockOf[dfa.getStartState().getID()]];
+        assert startState != null && !endStates.isEmpty() : "新DFA装载错误";
+        return new DFA(optimizedStates, startState, endStates, inputAlphabet, dfa.getCharClasses(), dfa.getPattern());
     }
 
     /**
-     * 根据原DFA的状态集合到新DFA状态的映射，找到新DFA的状态集合，开始状态和结束状态集合
-     *
-     * @return 新的DFA
+     * 按目的状态建立逆转换的CSR数组
      */
-    private DFA loadOptimizedDFA() {
-        Set<DFAState> states = new HashSet<>();
-        DFAState startState = null;
-        Set<DFAState> endStates = new HashSet<>();
-        for (Map.Entry<Set<DFAState>, DFAState> entry : dfaStateMap.entrySet()) {
-            DFAState newDFAState = entry.getValue();
-            //原DFA状态集合中是否含有原DFA的起始状态，若有，则说明该新的DFA状态是新DFA的起始状态
-            if (entry.getKey().contains(dfa.getStartState())) startState = newDFAState;
-
-            //新DFA状态是否是结束状态，若是，则将该状态加入到新DFA的接受状态集合中，且将该DFAState对应的Pattern加入映射
-            if (newDFAState.isEndState()) {
-                endStates.add(newDFAState);
+    private void buildPredecessors() {
+        CharClasses charClasses = dfa.getCharClasses();
+        predecessorOffsets = new int[states.length + 1];
+        for (DFAState state : states) {
+            for (DFAState destState : state.getAdjacentList().values()) {
+                predecessorOffsets[destState.getID() + 1]++;
             }
-
-            //将每个新的DFA状态加入到新的DFA状态集合中去
-            states.add(entry.getValue());
         }
-
-        assert !states.isEmpty() && startState != null && !endStates.isEmpty() : "新DFA装载错误";
-        return new DFA(states, startState, endStates, inputAlphabet, dfa.getPattern());
-    }
-
-    /**
-     * 判断该DFA状态集合中是否含有DFA的接受状态
-     *
-     * @param stateSet DFA状态集合
-     * @return
-     */
-    private boolean hasDFAEndState(Set<DFAState> stateSet) {
-        for (DFAState dfaState : stateSet) {
-            if (dfaState.isEndState()) return true;
+        for (int i = 0; i < states.length; i++) {
+            predecessorOffsets[i + 1] += predecessorOffsets[i];
         }
-        return false;
-    }
 
-    /**
-     * 根据DFA状态集合找到新的DFA状态，然后加上一条到另一新DFA状态的边
-     *
-     * @param key       dfaStateMap的键值
-     * @param destState 目的DFA状态（优化后的）
-     * @param label     转化字符
-     */
-    private void addEdge(Set<DFAState> key, DFAState destState, char label) {
-        dfaStateMap.get(key).addEdge(label, destState);
-    }
-
-    /**
-     * 将状态组划分为不能再分割的状态组
-     */
-    private void partitionState() {
-        Set<Set<DFAState>> newPartition = new HashSet<>();
-        newPartition.addAll(dfaStatePartition);
-        while (canPartition(newPartition)) {
-            for (Set<DFAState> dfaStateSet : newPartition) {
-                if (!allStatesInSameSet(dfaStateSet)) {
-
-                    //先根据一个状态找出与这个状态在一组的状态，合并为一个状态
-                    Set<DFAState> stateInSameSet = findStateInSameSet(dfaStateSet);
-                    dfaStatePartition.add(stateInSameSet);
-
-                    //找出和先前的状态不在同一组的状态
-                    Set<DFAState> stateNotInSameSet = new HashSet<>();
-                    stateNotInSameSet.addAll(dfaStateSet);
-                    stateNotInSameSet.removeAll(stateInSameSet);
-                    dfaStatePartition.add(stateNotInSameSet);
-
-                    //删除划分的组
-                    dfaStatePartition.remove(dfaStateSet);
-                }
+        predecessors = new int[predecessorOffsets[states.length]];
+        predecessorClasses = new int[predecessors.length];
+        int[] cursor = Arrays.copyOf(predecessorOffsets, states.length);
+        for (DFAState state : states) {
+            for (Map.Entry<Character, DFAState> edge : state.getAdjacentList().entrySet()) {
+                int index = cursor[edge.getValue().getID()]++;
+                predecessors[index] = state.getID();
+                predecessorClasses[index] = charClasses.classOf(edge.getKey());
             }
-            newPartition.clear();
-            newPartition.addAll(dfaStatePartition);
-        }
-    }
-
-    /**
-     * 判断当前的划分组还能不能划分
-     *
-     * @return
-     */
-    private boolean canPartition(Set<Set<DFAState>> dfaStatePartition) {
-        for (Set<DFAState> dfaStateSet : dfaStatePartition) {
-            if(!allStatesInSameSet(dfaStateSet)) return true;
         }
-        return false;
     }
 
     /**
-     * 取集合中的一个状态，找到与这个状态相同的其它状态，并将他们划分为一组
-     *
-     * @param dfaStateSet
-     * @return
+     * 将状态组划分为不能再分割的状态组
      */
-    private Set<DFAState> findStateInSameSet(Set<DFAState> dfaStateSet) {
-        Set<DFAState> stateInSameSet = new HashSet<>();
-        Iterator<DFAState> iterator = dfaStateSet.iterator();
-        DFAState chosenState = iterator.next();
-        //现将该状态加入，该状态可能为分组中的唯一状态
-        stateInSameSet.add(chosenState);
-        while (iterator.hasNext()) {
-            DFAState nextState = iterator.next();
-            if (isInSameSet(chosenState, nextState)) stateInSameSet.add(nextState);
+    private void partitionState() {
+        int classCount = dfa.getCharClasses().getClassCount();
+
+        //工作表，每个组最多在其中出现一次；初始时所有的组都是分割者
+        int[] worklist = new int[states.length];
+        boolean[] inWorklist = new boolean[states.length];
+        int worklistSize = 0;
+        for (int block = 0; block < blockCount; block++) {
+            worklist[worklistSize++] = block;
+            inWorklist[block] = true;
         }
-        return stateInSameSet;
-    }
 
-    /**
-     * 检查两个状态是否同构
-     *
-     * @param chosenState 选择的DFA状态
-     * @param nextState   与之比较的DFA状态
-     * @return
-     */
-    private boolean isInSameSet(DFAState chosenState, DFAState nextState) {
-        //首先输入字符表得相同,且任意一个不能为空
-        Set<Character> chosenAlphabet = chosenState.getAlphabet();
-        Set<Character> nextAlphabet = nextState.getAlphabet();
-
-        if (chosenAlphabet.isEmpty() || nextAlphabet.isEmpty()) return false;
-
-        if (chosenState.getAlphabet().equals(nextState.getAlphabet())) {
-            Set<Character> inputAlphabet = chosenState.getAlphabet();
-            //对于输入字符表的每个输入，转换后到达的DFA状态集合都应该相同
-            for (Character c : inputAlphabet) {
-                if (!move(chosenState, c).equals(move(nextState, c))) return false;
+        //分割者的状态快照，以及按等价类分桶的前驱
+        int[] splitter = new int[states.length];
+        int[] groupedPredecessors = new int[predecessors.length];
+        int[] classStart = new int[classCount + 1];
+        int[] classCursor = new int[classCount];
+        int[] touchedClasses = new int[classCount];
+        int[] touchedBlocks = new int[states.length];
+
+        while (worklistSize > 0) {
+            int splitterBlock = worklist[--worklistSize];
+            inWorklist[splitterBlock] = false;
+
+            //分割过程中分割者本身也可能被分裂，先记下其中的状态
+            int splitterSize = blockEnd[splitterBlock] - blockFirst[splitterBlock];
+            System.arraycopy(elements, blockFirst[splitterBlock], splitter, 0, splitterSize);
+
+            //把进入分割者的边按等价类分桶
+            int touchedClassCount = 0;
+            for (int i = 0; i < splitterSize; i++) {
+                int state = splitter[i];
+                for (int edge = predecessorOffsets[state]; edge < predecessorOffsets[state + 1]; edge++) {
+                    int classID = predecessorClasses[edge];
+                    if (classCursor[classID]++ == 0) touchedClasses[touchedClassCount++] = classID;
+                }
+            }
+            int position = 0;
+            for (int i = 0; i < touchedClassCount; i++) {
+                int classID = touchedClasses[i];
+                classStart[classID] = position;
+                position += classCursor[classID];
+                classCursor[classID] = classStart[classID];
+            }
+            for (int i = 0; i < splitterSize; i++) {
+                int state = splitter[i];
+                for (int edge = predecessorOffsets[state]; edge < predecessorOffsets[state + 1]; edge++) {
+                    groupedPredecessors[classCursor[predecessorClasses[edge]]++] = predecessors[edge];
+                }
             }
-            return true;
-        }
-        return false;
-    }
 
-    /**
-     * 检查该组中的每两个状态对于同一个输入字符表中的字符是否转化到同一个DFA状态集合中
-     *
-     * @param dfaStateSet 需要检查的DFA状态集合
-     * @return
-     */
-    private boolean allStatesInSameSet(Set<DFAState> dfaStateSet) {
-        assert !dfaStateSet.isEmpty() : "DFA状态组为空了";
-        Iterator<DFAState> iterator = dfaStateSet.iterator();
-        DFAState chosenState = iterator.next();
-        while (iterator.hasNext()) {
-            if (!isInSameSet(chosenState, iterator.next())) return false;
+            //对每个等价类，标记经该类进入分割者的状态，再分裂被标记了一部分的组
+            for (int i = 0; i < touchedClassCount; i++) {
+                int classID = touchedClasses[i];
+                int touchedBlockCount = 0;
+                for (int j = classStart[classID]; j < classCursor[classID]; j++) {
+                    int state = groupedPredecessors[j];
+                    int block = blockOf[state];
+                    int boundary = blockFirst[block] + marked[block];
+                    if (location[state] < boundary) continue;
+                    swap(location[state], boundary);
+                    if (marked[block]++ == 0) touchedBlocks[touchedBlockCount++] = block;
+                }
+                classCursor[classID] = 0;
+
+                for (int j = 0; j < touchedBlockCount; j++) {
+                    int block = touchedBlocks[j];
+                    int markedCount = marked[block];
+                    marked[block] = 0;
+                    if (markedCount == blockEnd[block] - blockFirst[block]) continue;
+
+                    //被标记的状态分裂为新组
+                    int newBlock = blockCount++;
+                    blockFirst[newBlock] = blockFirst[block];
+                    blockEnd[newBlock] = blockFirst[block] + markedCount;
+                    blockFirst[block] = blockEnd[newBlock];
+                    for (int k = blockFirst[newBlock]; k < blockEnd[newBlock]; k++) {
+                        blockOf[elements[k]] = newBlock;
+                    }
+
+                    //原组已在工作表中时两半都要作为分割者，否则只需较小的一半
+                    int addedBlock = newBlock;
+                    if (!inWorklist[block] && blockEnd[block] - blockFirst[block] < markedCount) addedBlock = block;
+                    worklist[worklistSize++] = addedBlock;
+                    inWorklist[addedBlock] = true;
+                }
+            }
         }
-        return true;
     }
 
     /**
-     * 找到srcState经label转换后到达的状态位于哪个DFA状态集合，
-     *
-     * @param srcState 源状态
-     * @param label    输入字符
-     * @return destState所处的DFA状态集合
+     * 交换elements中两个位置的状态
      */
-    private Set<DFAState> move(DFAState srcState, char label) {
-        DFAState destState = srcState.getAdjacentList().get(label);
-        if (destState == null) return new HashSet<>();
-        for (Set<DFAState> dfaStateSet : dfaStatePartition) {
-            if (dfaStateSet.contains(destState)) return dfaStateSet;
-        }
-        return new HashSet<>();
+    private void swap(int i, int j) {
+        int state = elements[i];
+        elements[i] = elements[j];
+        elements[j] = state;
+        location[elements[i]] = i;
+        location[elements[j]] = j;
     }
 }
@@ -1,6 +1,6 @@
 package mylex.LexAnalyzer.dfa;
 
-import org.apache.log4j.Logger;
+import mylex.vo.Pattern;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -8,8 +8,6 @@ import java.util.Set;
 
 public class DFAState {
 
-    static Logger logger = Logger.getLogger(DFA.class.getName());
-
     /**
      * 由DFA的特性可知，由源状态出发，唯一一条边到达唯一一个状态，故利用map实现的邻接表
      */
@@ -30,6 +28,11 @@ public class DFAState {
      */
     private boolean isEndState;
 
+    /**
+     * 接受状态对应的Pattern，若多个Pattern在此状态接受，则为其中优先级最高的Pattern；非接受状态为null
+     */
+    private Pattern pattern;
+
     public DFAState(int id, boolean isEndState){
         this.adjacentList = new HashMap<>();
         isLabeled = false;
@@ -37,6 +40,17 @@ public class DFAState {
         this.isEndState = isEndState;
     }
 
+    /**
+     * 根据接受的Pattern构造DFA状态，pattern不为null则为接受状态
+     *
+     * @param id      状态id
+     * @param pattern 该状态接受的Pattern
+     */
+    public DFAState(int id, Pattern pattern) {
+        this(id, pattern != null);
+        this.pattern = pattern;
+    }
+
     public boolean isEndState(){
         return isEndState;
     }
@@ -87,17 +101,17 @@ public class DFAState {
         return id;
     }
 
+    public Pattern getPattern() {
+        return pattern;
+    }
+
     /**
      * 根据label向后移动，若邻接表中有目的状态，则返回，否则返回null
      * @param label 输入符号
      * @return 目的状态
      */
     public DFAState move(char label){
-        DFAState nextState = adjacentList.get(label);
-        if (nextState != null) {
-            logger.info(id + " move through " + label + " to " + adjacentList.get(label).id);
-            return adjacentList.get(label);
-        } else return null;
+        return adjacentList.get(label);
     }
 
     /**
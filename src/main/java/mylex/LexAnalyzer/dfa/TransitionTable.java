@@ -0,0 +1,173 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.vo.Pattern;
+import mylex.vo.TokenTypeTable;
+
+import java.util.*;
+
+/**
+ * 最简DFA的紧凑表示，状态编号为0..n-1，开始状态为0
+ * 状态转换保存在一维int数组中，下标为 状态 * 列数 + 字符所在的列
+ */
+public class TransitionTable {
+
+    /**
+     * 没有后继状态时转换表中的值
+     */
+    public static final int DEAD_STATE = -1;
+
+    /**
+     * 非接受状态在接受表中的值
+     */
+    public static final int NO_PATTERN = -1;
+
+    /**
+     * 字符到列的映射，列号即字符等价类编号，超出数组长度的字符以及不在字母表中的字符都在第0列，第0列上没有任何转换
+     */
+    private int[] charClasses;
+
+    /**
+     * 转换表的列数，即字符等价类的个数
+     */
+    private int classCount;
+
+    /**
+     * 转换表
+     */
+    private int[] transitions;
+
+    /**
+     * 每个状态接受的Pattern在patterns中的下标，非接受状态为NO_PATTERN
+     */
+    private int[] acceptPatterns;
+
+    /**
+     * 所有的Pattern，下标即Pattern的编号
+     */
+    private List<Pattern> patterns;
+
+    /**
+     * Token类型表，类型编号即Pattern的编号
+     */
+    private TokenTypeTable typeTable;
+
+    /**
+     * 将最简DFA编译为转换表
+     *
+     * @param dfa      合并后的最简DFA
+     * @param patterns 所有的Pattern，DFA接受状态上的Pattern都应在其中
+     */
+    public TransitionTable(DFA dfa, List<Pattern> patterns) {
+        this.patterns = patterns;
+        typeTable = new TokenTypeTable(patterns);
+
+        //从开始状态广度优先遍历，给可达的状态重新编号，开始状态编号为0
+        Map<DFAState, Integer> stateNumbers = new HashMap<>();
+        List<DFAState> orderedStates = new ArrayList<>();
+        Deque<DFAState> queue = new ArrayDeque<>();
+        stateNumbers.put(dfa.getStartState(), 0);
+        orderedStates.add(dfa.getStartState());
+        queue.add(dfa.getStartState());
+        while (!queue.isEmpty()) {
+            DFAState state = queue.poll();
+            for (DFAState destState : state.getAdjacentList().values()) {
+                if (!stateNumbers.containsKey(destState)) {
+                    stateNumbers.put(destState, orderedStates.size());
+                    orderedStates.add(destState);
+                    queue.add(destState);
+                }
+            }
+        }
+
+        //每个字符等价类占一列，第0列为字母表之外的字符
+        CharClasses dfaCharClasses = dfa.getCharClasses();
+        charClasses = dfaCharClasses.getClassMap();
+        classCount = dfaCharClasses.getClassCount();
+
+        //填充转换表和接受表
+        transitions = new int[orderedStates.size() * classCount];
+        Arrays.fill(transitions, DEAD_STATE);
+        acceptPatterns = new int[orderedStates.size()];
+        for (int state = 0; state < orderedStates.size(); state++) {
+            DFAState dfaState = orderedStates.get(state);
+            for (Map.Entry<Character, DFAState> edge : dfaState.getAdjacentList().entrySet()) {
+                transitions[state * classCount + dfaCharClasses.classOf(edge.getKey())] = stateNumbers.get(edge.getValue());
+            }
+
+            if (dfaState.isEndState()) {
+                int patternIndex = patterns.indexOf(dfaState.getPattern());
+                assert patternIndex >= 0 : ": DFA接受状态的Pattern不在Pattern序列中";
+                acceptPatterns[state] = patternIndex;
+            } else acceptPatterns[state] = NO_PATTERN;
+        }
+    }
+
+    /**
+     * 根据已经编译好的数组构造转换表
+     */
+    public TransitionTable(int[] charClasses, int classCount, int[] transitions, int[] acceptPatterns, List<Pattern> patterns) {
+        assert transitions.length == acceptPatterns.length * classCount : ": 转换表大小与状态数不符";
+        this.charClasses = charClasses;
+        this.classCount = classCount;
+        this.transitions = transitions;
+        this.acceptPatterns = acceptPatterns;
+        this.patterns = patterns;
+        typeTable = new TokenTypeTable(patterns);
+    }
+
+    /**
+     * 找到字符所在的列
+     *
+     * @param c 输入字符
+     * @return 列号
+     */
+    public int classOf(char c) {
+        return c < charClasses.length ? charClasses[c] : 0;
+    }
+
+    /**
+     * 根据状态和输入字符找到后继状态
+     *
+     * @param state 当前状态
+     * @param c     输入字符
+     * @return 后继状态，没有则返回DEAD_STATE
+     */
+    public int move(int state, char c) {
+        return transitions[state * classCount + classOf(c)];
+    }
+
+    public int getStateCount() {
+        return acceptPatterns.length;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int[] getCharClasses() {
+        return charClasses;
+    }
+
+    public int[] getTransitions() {
+        return transitions;
+    }
+
+    public int[] getAcceptPatterns() {
+        return acceptPatterns;
+    }
+
+    public List<Pattern> getPatterns() {
+        return patterns;
+    }
+
+    public TokenTypeTable getTypeTable() {
+        return typeTable;
+    }
+
+    /**
+     * 每个Pattern匹配到的词素是否被跳过，下标为Pattern的编号
+     */
+    public boolean[] getSkipPatterns() {
+        return typeTable.getSkipFlags();
+    }
+}
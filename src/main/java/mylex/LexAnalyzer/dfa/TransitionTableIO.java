@@ -0,0 +1,186 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.vo.Pattern;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 转换表的二进制格式，保存编译后的转换表和所有的Pattern，加载时不需要重新构造NFA和DFA
+ * 格式（大端序）：
+ * <pre>
+ * int    魔数 0x4D4C4558 ("MLEX")
+ * int    格式版本
+ * int    Pattern个数，之后每个Pattern依次为 名字、正则表达式（int字节数 + UTF-8字节）、int优先级、byte是否跳过
+ * int    字符映射的长度
+ * int    列数
+ * int    状态数
+ * int[]  字符映射
+ * int[]  转换表，状态数 * 列数
+ * int[]  每个状态接受的Pattern编号
+ * </pre>
+ * 加载时将文件映射到内存，数组部分通过IntBuffer整块读取
+ */
+public class TransitionTableIO {
+
+    public static final int MAGIC = 0x4D4C4558;
+
+    /**
+     * 当前的格式版本，格式改变时递增
+     */
+    public static final int VERSION = 2;
+
+    private TransitionTableIO() {
+    }
+
+    /**
+     * 将转换表写入文件
+     *
+     * @param table 转换表
+     * @param file  文件路径
+     */
+    public static void write(TransitionTable table, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(table, out);
+        }
+    }
+
+    public static void write(TransitionTable table, OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        List<Pattern> patterns = table.getPatterns();
+        out.writeInt(patterns.size());
+        for (Pattern pattern : patterns) {
+            writeString(out, pattern.name);
+            writeString(out, pattern.regularExpression);
+            out.writeInt(pattern.precedence);
+            out.writeBoolean(pattern.skip);
+        }
+
+        out.writeInt(table.getCharClasses().length);
+        out.writeInt(table.getClassCount());
+        out.writeInt(table.getStateCount());
+        writeInts(out, table.getCharClasses());
+        writeInts(out, table.getTransitions());
+        writeInts(out, table.getAcceptPatterns());
+        out.flush();
+    }
+
+    /**
+     * 将文件映射到内存并加载转换表
+     *
+     * @param file 文件路径
+     * @return 转换表
+     * @throws IOException 文件不是转换表文件，或格式版本不同
+     */
+    public static TransitionTable read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(buffer);
+        }
+    }
+
+    /**
+     * 从缓冲区的当前位置加载转换表，缓冲区的字节序会被设为大端序
+     */
+    public static TransitionTable read(ByteBuffer buffer) throws IOException {
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("不是转换表文件");
+            int version = buffer.getInt();
+            if (version != VERSION) throw new IOException("转换表格式版本为" + version + "，当前版本为" + VERSION);
+
+            //每个Pattern至少占两个字符串长度、优先级和是否跳过共13个字节
+            int patternCount = buffer.getInt();
+            checkCount(patternCount, buffer.remaining() / 13, "Pattern个数");
+            List<Pattern> patterns = new ArrayList<>(patternCount);
+            for (int i = 0; i < patternCount; i++) {
+                String name = readString(buffer);
+                String regularExpression = readString(buffer);
+                int precedence = buffer.getInt();
+                patterns.add(new Pattern(name, regularExpression, precedence, buffer.get() != 0));
+            }
+
+            int charClassesLength = buffer.getInt();
+            int classCount = buffer.getInt();
+            int stateCount = buffer.getInt();
+            checkCount(charClassesLength, Integer.MAX_VALUE, "字符映射的长度");
+            checkCount(classCount, Integer.MAX_VALUE, "列数");
+            checkCount(stateCount, Integer.MAX_VALUE, "状态数");
+            if (classCount == 0 || stateCount == 0) throw new IOException("转换表文件已损坏：列数和状态数不能为0");
+            //数组的总长度不能超过剩余的字节数
+            long intCount = charClassesLength + (long) stateCount * classCount + stateCount;
+            if (intCount > buffer.remaining() / 4) throw new IOException("转换表文件已损坏：数组长度超过文件大小");
+
+            int[] charClasses = readInts(buffer, charClassesLength);
+            checkRange(charClasses, 0, classCount, "字符映射");
+            int[] transitions = readInts(buffer, stateCount * classCount);
+            checkRange(transitions, TransitionTable.DEAD_STATE, stateCount, "转换表");
+            int[] acceptPatterns = readInts(buffer, stateCount);
+            checkRange(acceptPatterns, TransitionTable.NO_PATTERN, patternCount, "接受的Pattern编号");
+            return new TransitionTable(charClasses, classCount, transitions, acceptPatterns, patterns);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("转换表文件不完整");
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * 检查从文件中读出的个数或长度不为负数且不超过max
+     */
+    private static void checkCount(int count, int max, String what) throws IOException {
+        if (count < 0 || count > max) throw new IOException("转换表文件已损坏：" + what + "为" + count);
+    }
+
+    /**
+     * 检查数组中的每个值都在[min, max)之间，避免损坏的转换表在扫描时才越界
+     */
+    private static void checkRange(int[] values, int min, int max, String what) throws IOException {
+        for (int value : values) {
+            if (value < min || value >= max) throw new IOException("转换表文件已损坏：" + what + "中的值" + value + "越界");
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) throws IOException {
+        int length = buffer.getInt();
+        checkCount(length, buffer.remaining(), "字符串长度");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * 整块读取int数组，并将缓冲区的位置移动到数组之后
+     */
+    private static int[] readInts(ByteBuffer buffer, int length) {
+        int[] values = new int[length];
+        IntBuffer ints = buffer.asIntBuffer();
+        ints.get(values);
+        buffer.position(buffer.position() + length * 4);
+        return values;
+    }
+}
@@ -0,0 +1,307 @@
+package mylex.LexAnalyzer.generator;
+
+import mylex.LexAnalyzer.dfa.DFA;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Pattern;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 根据最简DFA生成独立的Java词法分析器源文件，生成的类不依赖MyLex，可以直接加入项目中编译，
+ * 运行时不再需要解析.l文件、构造NFA和DFA
+ * 生成的类包含一个Token类型枚举、按字符串常量压缩的转换表和按最长匹配切分Token的扫描代码
+ * 转换表以字符串常量的形式保存（与JFlex相同），避免大数组的初始化代码超过方法64KB的限制
+ */
+public class ScannerSourceGenerator {
+
+    /**
+     * 每个字符串常量中保存的表项数，保证常量池中的UTF-8编码不超过65535字节
+     */
+    private static final int CHUNK_SIZE = 16384;
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private TransitionTable table;
+
+    /**
+     * 生成类所在的包，为空时生成在默认包中
+     */
+    private String packageName;
+
+    /**
+     * 生成类的类名
+     */
+    private String className;
+
+    /**
+     * 每个Pattern对应的枚举常量名
+     */
+    private String[] typeNames;
+
+    /**
+     * @param optimizedDFA DFAOptimizer.constructOptimizedDFA得到的合并后的最简DFA
+     * @param patterns     所有的Pattern，下标即Token类型的编号
+     * @param packageName  生成类所在的包，为空时生成在默认包中
+     * @param className    生成类的类名
+     */
+    public ScannerSourceGenerator(DFA optimizedDFA, List<Pattern> patterns, String packageName, String className) {
+        this(new TransitionTable(optimizedDFA, patterns), packageName, className);
+    }
+
+    /**
+     * @param table       转换表
+     * @param packageName 生成类所在的包，为空时生成在默认包中
+     * @param className   生成类的类名
+     * @throws IllegalArgumentException 状态数、列数或Pattern数过多，表项加1后无法用一个字符保存
+     */
+    public ScannerSourceGenerator(TransitionTable table, String packageName, String className) {
+        //表项加1后作为一个字符保存，转换表中的状态编号、等价类编号和Pattern编号加1后都不能超过Character.MAX_VALUE
+        int maxValue = Math.max(table.getStateCount(), Math.max(table.getClassCount(), table.getPatterns().size()));
+        if (maxValue >= Character.MAX_VALUE) {
+            throw new IllegalArgumentException("状态数" + table.getStateCount() + "、列数" + table.getClassCount()
+                    + "或Pattern数" + table.getPatterns().size() + "过多，无法压缩到字符串常量中");
+        }
+        this.table = table;
+        this.packageName = packageName;
+        this.className = className;
+        typeNames = createTypeNames(table.getPatterns());
+    }
+
+    /**
+     * 将生成的源文件写入文件
+     *
+     * @param file 源文件路径，通常为 源码目录/包路径/类名.java
+     */
+    public void generate(Path file) throws IOException {
+        if (file.getParent() != null) Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            generate(writer);
+        }
+    }
+
+    public void generate(Writer writer) throws IOException {
+        writer.write(generate());
+    }
+
+    /**
+     * 生成词法分析器的源代码
+     *
+     * @return Java源代码
+     */
+    public String generate() {
+        StringBuilder sb = new StringBuilder();
+        if (packageName != null && !packageName.isEmpty()) {
+            sb.append("package ").append(packageName).append(";\n\n");
+        }
+
+        sb.append("/**\n");
+        sb.append(" * 由MyLex根据最简DFA生成的词法分析器，请勿手动修改\n");
+        sb.append(" * 按最长匹配切分Token，多个Pattern匹配同样长度的词素时取优先级最高的Pattern\n");
+        sb.append(" */\n");
+        sb.append("public final class ").append(className).append(" {\n\n");
+
+        //Token类型枚举
+        List<Pattern> patterns = table.getPatterns();
+        sb.append("    public enum TokenType {\n");
+        for (int i = 0; i < patterns.size(); i++) {
+            sb.append("        ").append(typeNames[i]).append('(').append(quote(patterns.get(i).name))
+                    .append(", ").append(patterns.get(i).skip).append(')')
+                    .append(i == patterns.size() - 1 ? ";\n" : ",\n");
+        }
+        sb.append("\n");
+        sb.append("        private final String patternName;\n\n");
+        sb.append("        private final boolean skipped;\n\n");
+        sb.append("        TokenType(String patternName, boolean skipped) {\n");
+        sb.append("            this.patternName = patternName;\n");
+        sb.append("            this.skipped = skipped;\n");
+        sb.append("        }\n\n");
+        sb.append("        /**\n");
+        sb.append("         * .l文件中Pattern的名字\n");
+        sb.append("         */\n");
+        sb.append("        public String getPatternName() {\n");
+        sb.append("            return patternName;\n");
+        sb.append("        }\n\n");
+        sb.append("        /**\n");
+        sb.append("         * 该类型的词素是否被跳过，被跳过的词素不会生成Token\n");
+        sb.append("         */\n");
+        sb.append("        public boolean isSkipped() {\n");
+        sb.append("            return skipped;\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+
+        //Token
+        sb.append("    public static final class Token {\n\n");
+        sb.append("        private final TokenType type;\n\n");
+        sb.append("        private final CharSequence source;\n\n");
+        sb.append("        private final int offset;\n\n");
+        sb.append("        private final int end;\n\n");
+        sb.append("        Token(TokenType type, CharSequence source, int offset, int end) {\n");
+        sb.append("            this.type = type;\n");
+        sb.append("            this.source = source;\n");
+        sb.append("            this.offset = offset;\n");
+        sb.append("            this.end = end;\n");
+        sb.append("        }\n\n");
+        sb.append("        public TokenType getType() {\n");
+        sb.append("            return type;\n");
+        sb.append("        }\n\n");
+        sb.append("        public String getValue() {\n");
+        sb.append("            return source.subSequence(offset, end).toString();\n");
+        sb.append("        }\n\n");
+        sb.append("        public int getOffset() {\n");
+        sb.append("            return offset;\n");
+        sb.append("        }\n\n");
+        sb.append("        public int getEnd() {\n");
+        sb.append("            return end;\n");
+        sb.append("        }\n\n");
+        sb.append("        @Override\n");
+        sb.append("        public String toString() {\n");
+        sb.append("            return type + \"(\" + getValue() + \")\";\n");
+        sb.append("        }\n");
+        sb.append("    }\n\n");
+
+        //压缩的转换表，表项均加1保存，使-1变为0
+        sb.append("    private static final int CLASS_COUNT = ").append(table.getClassCount()).append(";\n\n");
+        appendTable(sb, "CHAR_CLASSES", table.getCharClasses());
+        appendTable(sb, "TRANSITIONS", table.getTransitions());
+        appendTable(sb, "ACCEPT_PATTERNS", table.getAcceptPatterns());
+        sb.append("    private static final TokenType[] TYPES = TokenType.values();\n\n");
+
+        //扫描代码
+        sb.append("    private final CharSequence input;\n\n");
+        sb.append("    /**\n");
+        sb.append("     * 下一个词素的开始位置\n");
+        sb.append("     */\n");
+        sb.append("    private int lexemeBegin;\n\n");
+        sb.append("    public ").append(className).append("(CharSequence input) {\n");
+        sb.append("        this.input = input;\n");
+        sb.append("    }\n\n");
+        sb.append("    /**\n");
+        sb.append("     * 按最长匹配扫描下一个Token，被跳过的词素不生成Token\n");
+        sb.append("     *\n");
+        sb.append("     * @return 下一个Token，输入结束时返回null\n");
+        sb.append("     * @throws IllegalStateException 剩余的输入无法被任何Pattern匹配\n");
+        sb.append("     */\n");
+        sb.append("    public Token nextToken() {\n");
+        sb.append("        final CharSequence input = this.input;\n");
+        sb.append("        final int length = input.length();\n");
+        sb.append("        int lexemeBegin = this.lexemeBegin;\n");
+        sb.append("        while (lexemeBegin < length) {\n");
+        sb.append("            int state = 0;\n");
+        sb.append("            int lastPattern = -1;\n");
+        sb.append("            int lastEnd = -1;\n");
+        sb.append("            for (int forward = lexemeBegin; forward < length; forward++) {\n");
+        sb.append("                char c = input.charAt(forward);\n");
+        sb.append("                int charClass = c < CHAR_CLASSES.length ? CHAR_CLASSES[c] : 0;\n");
+        sb.append("                state = TRANSITIONS[state * CLASS_COUNT + charClass];\n");
+        sb.append("                if (state < 0) break;\n");
+        sb.append("                int pattern = ACCEPT_PATTERNS[state];\n");
+        sb.append("                if (pattern >= 0) {\n");
+        sb.append("                    lastPattern = pattern;\n");
+        sb.append("                    lastEnd = forward + 1;\n");
+        sb.append("                }\n");
+        sb.append("            }\n\n");
+        sb.append("            if (lastPattern < 0) {\n");
+        sb.append("                throw new IllegalStateException(input.subSequence(lexemeBegin, length) + \"无法解析\");\n");
+        sb.append("            }\n");
+        sb.append("            this.lexemeBegin = lastEnd;\n");
+        sb.append("            if (!TYPES[lastPattern].skipped) return new Token(TYPES[lastPattern], input, lexemeBegin, lastEnd);\n");
+        sb.append("            lexemeBegin = lastEnd;\n");
+        sb.append("        }\n");
+        sb.append("        return null;\n");
+        sb.append("    }\n\n");
+
+        //解压转换表
+        sb.append("    private static int[] unpack(String... chunks) {\n");
+        sb.append("        int size = 0;\n");
+        sb.append("        for (String chunk : chunks) {\n");
+        sb.append("            size += chunk.length();\n");
+        sb.append("        }\n");
+        sb.append("        int[] values = new int[size];\n");
+        sb.append("        int i = 0;\n");
+        sb.append("        for (String chunk : chunks) {\n");
+        sb.append("            for (int j = 0; j < chunk.length(); j++) {\n");
+        sb.append("                values[i++] = chunk.charAt(j) - 1;\n");
+        sb.append("            }\n");
+        sb.append("        }\n");
+        sb.append("        return values;\n");
+        sb.append("    }\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * 生成一个压缩表的声明，每个表项加1后作为一个字符保存在字符串常量中
+     */
+    private void appendTable(StringBuilder sb, String name, int[] values) {
+        sb.append("    private static final int[] ").append(name).append(" = unpack(");
+        if (values.length == 0) sb.append("\"\"");
+        for (int begin = 0; begin < values.length; begin += CHUNK_SIZE) {
+            if (begin > 0) sb.append(',');
+            sb.append("\n            \"");
+            int end = Math.min(begin + CHUNK_SIZE, values.length);
+            for (int i = begin; i < end; i++) {
+                appendChar(sb, (char) (values[i] + 1));
+            }
+            sb.append('"');
+        }
+        sb.append(");\n\n");
+    }
+
+    /**
+     * 在字符串常量中写入一个字符
+     * 小于256的字符使用八进制转义，因为\\u000a、\\u0022等Unicode转义在词法分析之前就会被替换，会破坏字符串常量
+     */
+    private void appendChar(StringBuilder sb, char c) {
+        if (c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '7') sb.append(c);
+        else if (c < 256) sb.append('\\').append((char) ('0' + (c >> 6))).append((char) ('0' + (c >> 3 & 7))).append((char) ('0' + (c & 7)));
+        else {
+            sb.append("\\u");
+            for (int shift = 12; shift >= 0; shift -= 4) {
+                sb.append(HEX_DIGITS[c >> shift & 0xF]);
+            }
+        }
+    }
+
+    /**
+     * 为每个Pattern生成合法且互不相同的枚举常量名
+     */
+    private String[] createTypeNames(List<Pattern> patterns) {
+        String[] names = new String[patterns.size()];
+        Set<String> used = new HashSet<>();
+        for (int i = 0; i < names.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (char c : patterns.get(i).name.toCharArray()) {
+                sb.append(Character.isJavaIdentifierPart(c) && c < 128 ? Character.toUpperCase(c) : '_');
+            }
+            //不以字母开头时加上前缀，也避免了单独的"_"
+            if (sb.length() == 0 || !Character.isLetter(sb.charAt(0))) sb.insert(0, "T_");
+
+            String name = sb.toString();
+            for (int suffix = 2; !used.add(name); suffix++) {
+                name = sb + "_" + suffix;
+            }
+            names[i] = name;
+        }
+        return names;
+    }
+
+    /**
+     * 将字符串转换为Java字符串常量
+     */
+    private String quote(String s) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20 || c > 0x7e) appendChar(sb, c);
+            else sb.append(c);
+        }
+        return sb.append('"').toString();
+    }
+}
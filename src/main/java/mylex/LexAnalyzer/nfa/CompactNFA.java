@@ -0,0 +1,205 @@
+package mylex.LexAnalyzer.nfa;
+
+import mylex.vo.Pattern;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * NFA的紧凑表示，状态为从0开始连续编号的下标，开始状态为0，只包含从开始状态可达的状态
+ * 边按源状态以CSR格式保存在平行的数组中：状态i的epsilon边的目的状态为
+ * epsilonTargets[epsilonOffsets[i]]到epsilonTargets[epsilonOffsets[i + 1] - 1]，带标号的边同理，
+ * epsilon边和带标号的边分开保存，每个状态到自身的epsilon边是隐含的，不保存
+ * 编译Pattern时由NFABuilder在数组上直接构建，不创建NFAState和NFAEdge对象；也可以由NFA的对象图转换得到
+ * 构造DFA只需要遍历数组
+ */
+public class CompactNFA {
+
+    /**
+     * 状态数
+     */
+    private int stateCount;
+
+    /**
+     * 每个状态的epsilon边在epsilonTargets中的开始位置，长度为状态数+1
+     */
+    private int[] epsilonOffsets;
+
+    /**
+     * epsilon边的目的状态
+     */
+    private int[] epsilonTargets;
+
+    /**
+     * 每个状态的带标号的边在labeledTargets中的开始位置，长度为状态数+1
+     */
+    private int[] labeledOffsets;
+
+    /**
+     * 带标号的边的目的状态
+     */
+    private int[] labeledTargets;
+
+    /**
+     * 带标号的边的标号，与labeledTargets平行
+     */
+    private char[] labels;
+
+    /**
+     * 接受状态，按合并时的顺序排列，以及每个接受状态对应的Pattern
+     */
+    private int[] acceptStates;
+
+    private Pattern[] acceptPatterns;
+
+    /**
+     * 输入字母表
+     */
+    private Set<Character> inputAlphabet;
+
+    /**
+     * 原NFA的Pattern，合并后的NFA为null
+     */
+    private Pattern pattern;
+
+    /**
+     * 从开始状态广度优先遍历NFA，给可达的状态编号并把边转换为数组
+     *
+     * @param nfa NFA
+     */
+    public CompactNFA(NFA nfa) {
+        inputAlphabet = nfa.getInputAlphabet();
+        pattern = nfa.getPattern();
+
+        List<NFAState> states = new ArrayList<>();
+        Map<NFAState, Integer> indexes = new HashMap<>();
+        indexes.put(nfa.getStartState(), 0);
+        states.add(nfa.getStartState());
+        int epsilonCount = 0;
+        int labeledCount = 0;
+        for (int i = 0; i < states.size(); i++) {
+            for (NFAEdge edge : states.get(i).getAdjacentcentList()) {
+                if (edge.getLabel() == NFA.EPSILON) epsilonCount++;
+                else labeledCount++;
+                if (!indexes.containsKey(edge.getDestState())) {
+                    indexes.put(edge.getDestState(), states.size());
+                    states.add(edge.getDestState());
+                }
+            }
+        }
+
+        stateCount = states.size();
+        epsilonOffsets = new int[stateCount + 1];
+        epsilonTargets = new int[epsilonCount];
+        labeledOffsets = new int[stateCount + 1];
+        labeledTargets = new int[labeledCount];
+        labels = new char[labeledCount];
+        epsilonCount = 0;
+        labeledCount = 0;
+        for (int i = 0; i < stateCount; i++) {
+            epsilonOffsets[i] = epsilonCount;
+            labeledOffsets[i] = labeledCount;
+            for (NFAEdge edge : states.get(i).getAdjacentcentList()) {
+                int destState = indexes.get(edge.getDestState());
+                if (edge.getLabel() == NFA.EPSILON) {
+                    epsilonTargets[epsilonCount++] = destState;
+                } else {
+                    labeledTargets[labeledCount] = destState;
+                    labels[labeledCount++] = edge.getLabel();
+                }
+            }
+        }
+        epsilonOffsets[stateCount] = epsilonCount;
+        labeledOffsets[stateCount] = labeledCount;
+
+        //不可达的接受状态不会出现在任何状态集合中
+        List<Integer> acceptStateList = new ArrayList<>();
+        List<Pattern> acceptPatternList = new ArrayList<>();
+        for (Map.Entry<NFAState, Pattern> entry : nfa.getEndStatePatterns().entrySet()) {
+            Integer index = indexes.get(entry.getKey());
+            if (index != null) {
+                acceptStateList.add(index);
+                acceptPatternList.add(entry.getValue());
+            }
+        }
+        acceptStates = new int[acceptStateList.size()];
+        acceptPatterns = new Pattern[acceptStateList.size()];
+        for (int i = 0; i < acceptStates.length; i++) {
+            acceptStates[i] = acceptStateList.get(i);
+            acceptPatterns[i] = acceptPatternList.get(i);
+        }
+    }
+
+    /**
+     * 直接由CSR数组构造，数组不会被复制
+     *
+     * @param epsilonOffsets 每个状态的epsilon边的开始位置，长度为状态数+1
+     * @param epsilonTargets epsilon边的目的状态
+     * @param labeledOffsets 每个状态的带标号的边的开始位置，长度为状态数+1
+     * @param labeledTargets 带标号的边的目的状态
+     * @param labels         带标号的边的标号
+     * @param acceptStates   接受状态，按合并时的顺序排列
+     * @param acceptPatterns 每个接受状态对应的Pattern
+     * @param inputAlphabet  输入字母表
+     * @param pattern        NFA的Pattern，合并后的NFA为null
+     */
+    public CompactNFA(int[] epsilonOffsets, int[] epsilonTargets, int[] labeledOffsets, int[] labeledTargets,
+                      char[] labels, int[] acceptStates, Pattern[] acceptPatterns, Set<Character> inputAlphabet,
+                      Pattern pattern) {
+        assert epsilonOffsets.length == labeledOffsets.length : ": 两种边的偏移数组长度不同";
+        assert acceptStates.length == acceptPatterns.length : ": 接受状态与Pattern个数不同";
+        stateCount = epsilonOffsets.length - 1;
+        this.epsilonOffsets = epsilonOffsets;
+        this.epsilonTargets = epsilonTargets;
+        this.labeledOffsets = labeledOffsets;
+        this.labeledTargets = labeledTargets;
+        this.labels = labels;
+        this.acceptStates = acceptStates;
+        this.acceptPatterns = acceptPatterns;
+        this.inputAlphabet = inputAlphabet;
+        this.pattern = pattern;
+    }
+
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    public int[] getEpsilonOffsets() {
+        return epsilonOffsets;
+    }
+
+    public int[] getEpsilonTargets() {
+        return epsilonTargets;
+    }
+
+    public int[] getLabeledOffsets() {
+        return labeledOffsets;
+    }
+
+    public int[] getLabeledTargets() {
+        return labeledTargets;
+    }
+
+    public char[] getLabels() {
+        return labels;
+    }
+
+    public int[] getAcceptStates() {
+        return acceptStates;
+    }
+
+    public Pattern[] getAcceptPatterns() {
+        return acceptPatterns;
+    }
+
+    public Set<Character> getInputAlphabet() {
+        return inputAlphabet;
+    }
+
+    public Pattern getPattern() {
+        return pattern;
+    }
+}
@@ -2,8 +2,13 @@ package mylex.LexAnalyzer.nfa;
 
 import mylex.vo.Pattern;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -36,6 +41,11 @@ public class NFA {
      */
     private Set<Character> inputAlphabet;
 
+    /**
+     * 合并后的NFA有多个接受状态，记录每个接受状态对应的Pattern，按合并时的顺序保存；未合并的NFA为null
+     */
+    private Map<NFAState, Pattern> endStatePatterns;
+
     /**
      * 基础的，只具有两个状态的NFA构造器
      *
@@ -109,11 +119,83 @@ public class NFA {
         this.inputAlphabet = inputAlphabet;
     }
 
+    /**
+     * 由单个Pattern的紧凑NFA还原对象图，供需要NFAState对象的接口使用
+     *
+     * @param compactNFA 只有一个接受状态的紧凑NFA
+     * @param id         分配给第一个状态的id，状态i的id为id + i
+     */
+    public NFA(CompactNFA compactNFA, int id) {
+        assert compactNFA.getAcceptStates().length == 1 : NFA.class.getName() + ": 紧凑NFA的接受状态不唯一";
+        int acceptState = compactNFA.getAcceptStates()[0];
+        NFAState[] newStates = new NFAState[compactNFA.getStateCount()];
+        for (int i = 0; i < newStates.length; i++) {
+            newStates[i] = new NFAState(id + i, i == acceptState);
+        }
+        int[] epsilonOffsets = compactNFA.getEpsilonOffsets();
+        int[] epsilonTargets = compactNFA.getEpsilonTargets();
+        int[] labeledOffsets = compactNFA.getLabeledOffsets();
+        int[] labeledTargets = compactNFA.getLabeledTargets();
+        char[] labels = compactNFA.getLabels();
+        for (int i = 0; i < newStates.length; i++) {
+            for (int edge = labeledOffsets[i]; edge < labeledOffsets[i + 1]; edge++) {
+                newStates[i].addEdge(new NFAEdge(newStates[labeledTargets[edge]], labels[edge]));
+            }
+            for (int edge = epsilonOffsets[i]; edge < epsilonOffsets[i + 1]; edge++) {
+                newStates[i].addEdge(new NFAEdge(newStates[epsilonTargets[edge]], NFA.EPSILON));
+            }
+        }
+
+        states = new HashSet<>(Arrays.asList(newStates));
+        startState = newStates[0];
+        endState = newStates[acceptState];
+        pattern = compactNFA.getPattern();
+        inputAlphabet = new HashSet<>(compactNFA.getInputAlphabet());
+    }
+
     public Set<NFAState> getStates() {
         assert !states.isEmpty() : NFA.class.getName() + ": states为空";
         return states;
     }
 
+    /**
+     * 将多个NFA合并为一个NFA，新建一个开始状态，通过epsilon边连接到各个NFA的开始状态
+     * 合并后的NFA有多个接受状态，每个接受状态对应其原NFA的Pattern
+     *
+     * @param nfaList 需要合并的NFA序列，Pattern优先级相同时，排在前面的NFA优先
+     * @return 合并后的NFA
+     */
+    public static NFA combine(List<NFA> nfaList) {
+        assert !nfaList.isEmpty() : NFA.class.getName() + ": 需要合并的NFA序列为空";
+
+        Set<NFAState> states = new HashSet<>();
+        Set<Character> inputAlphabet = new HashSet<>();
+        Map<NFAState, Pattern> endStatePatterns = new LinkedHashMap<>();
+
+        //新的开始状态的id需要大于所有已分配的id
+        int id = 0;
+        for (NFA nfa : nfaList) {
+            for (NFAState state : nfa.getStates()) {
+                id = Math.max(id, state.getID() + 1);
+            }
+        }
+        NFAState startState = new NFAState(id);
+
+        for (NFA nfa : nfaList) {
+            //添加一条从新的开始状态到该NFA开始状态的epsilon边
+            startState.addEdge(new NFAEdge(nfa.getStartState(), NFA.EPSILON));
+
+            states.addAll(nfa.getStates());
+            inputAlphabet.addAll(nfa.getInputAlphabet());
+            endStatePatterns.put(nfa.getEndState(), nfa.getPattern());
+        }
+        states.add(startState);
+
+        NFA combinedNFA = new NFA(states, startState, null, null, inputAlphabet);
+        combinedNFA.endStatePatterns = endStatePatterns;
+        return combinedNFA;
+    }
+
     public NFAState getEndState() {
         assert endState != null : NFA.class.getName() + ": endState为null";
         return endState;
@@ -185,9 +267,9 @@ public class NFA {
         inputAlphabet.addAll(postNFA.inputAlphabet);
         assert inputAlphabet.containsAll(postNFA.inputAlphabet) : NFA.class.getName() + ": 新的字母表中不完全包含后继状态的字母表";
 
-        //将后继NFA的开始状态的邻接表加入到当前NFA的结束状态的邻接表中，除了通过epsilon到达自身状态的边
+        //将后继NFA的开始状态的邻接表加入到当前NFA的结束状态的邻接表中
         for (NFAEdge edge : postNFA.startState.getAdjacentcentList()) {
-            if (inputAlphabet.contains(edge.getLabel())) endStateAddEdge(edge);
+            endStateAddEdge(edge);
         }
 
         //添加新加入的NFA状态图的所有状态，并删除postNFA的状态，重设结束状态
@@ -281,9 +363,9 @@ public class NFA {
         inputAlphabet.addAll(postNFA.inputAlphabet);
         assert inputAlphabet.containsAll(postNFA.inputAlphabet) : NFA.class.getName() + ": 新的字母表中不完全包含后继状态的字母表";
 
-        //将后继NFA的开始状态的邻接表加入到当前NFA的结束状态的邻接表中，除了通过epsilon到达自身状态的边
+        //将后继NFA的开始状态的邻接表加入到当前NFA的结束状态的邻接表中
         for (NFAEdge edge : postNFA.startState.getAdjacentcentList()) {
-            if (inputAlphabet.contains(edge.getLabel())) endStateAddEdge(edge);
+            endStateAddEdge(edge);
         }
 
         //因为是可选的NFA，则给当前NFA的结束状态增加一条到后继NFA结束状态的epsilon边
@@ -379,8 +461,9 @@ public class NFA {
         //进行必要的自连接
         id = concatSelfCertainTimes(minTimes, id);
 
-        //对于可选择的重复次数，在当前NFA后面连接一个可选的repeatNFA
-        for (int reapeatTimeOptional = 1; reapeatTimeOptional < maxTimes - minTimes; reapeatTimeOptional++) {
+        //对于可选择的重复次数，在当前NFA后面连接一个可选的repeatNFA；{0}已经是可选的一次，其后只需maxTimes-1次
+        int optionalTimes = minTimes == 0 ? maxTimes - 1 : maxTimes - minTimes;
+        for (int reapeatTimeOptional = 0; reapeatTimeOptional < optionalTimes; reapeatTimeOptional++) {
             id = concatOptional(repeatNFA, id);
             //再次克隆原NFA并给克隆的NFA重新分配id
             repeatNFA = repeatNFA.cloneNFA(id);
@@ -436,17 +519,19 @@ public class NFA {
 
     /**
      * 找到从T中某个NFA状态s开始只通过epsilon转换到达的NFA状态集合
+     * 深度优先遍历epsilon边，每个状态只访问一次
+     * 构造DFA时使用DFA中预先求出的每个状态的闭包，不调用此方法
      *
      * @param T 需要转换的NFA状态集合
      * @return 能够到达的NFA状态集合
      */
     public Set<NFAState> epsilonClosureOther(Set<NFAState> T) {
-        int size = T.size();
-        Set<NFAState> closure = move(T, NFA.EPSILON);
-        //一直往下循环，直到找到最大的闭包
-        while (closure.size() != size) {
-            size = closure.size();
-            closure = move(closure, NFA.EPSILON);
+        Set<NFAState> closure = new HashSet<>(T);
+        Deque<NFAState> stack = new ArrayDeque<>(T);
+        while (!stack.isEmpty()) {
+            for (NFAEdge edge : stack.pop().getAdjacentcentList()) {
+                if (edge.getLabel() == NFA.EPSILON && closure.add(edge.getDestState())) stack.push(edge.getDestState());
+            }
         }
         return closure;
     }
@@ -493,7 +578,13 @@ public class NFA {
         System.out.println("开始状态:");
         startState.printNFAState();
         System.out.println("结束状态:");
-        System.out.println("id: " + +endState.getID() + "     pattern:" + pattern.regularExpression);
+        if (endStatePatterns == null) {
+            System.out.println("id: " + +endState.getID() + "     pattern:" + pattern.regularExpression);
+        } else {
+            for (Map.Entry<NFAState, Pattern> entry : endStatePatterns.entrySet()) {
+                System.out.println("id: " + +entry.getKey().getID() + "     pattern:" + entry.getValue().regularExpression);
+            }
+        }
         System.out.println("-----------------------------");
         for (NFAState state : states) {
             state.printNFAState();
@@ -508,10 +599,55 @@ public class NFA {
      * @return
      */
     public Pattern findPatternByNFAState(NFAState endState) {
+        if (endStatePatterns != null) {
+            assert endStatePatterns.containsKey(endState) : ": 该NFA的接受状态没有映射任何Pattern";
+            return endStatePatterns.get(endState);
+        }
         assert endState.equals(this.endState) : ": 该NFA的接受状态没有映射任何Pattern";
         return pattern;
     }
 
+    /**
+     * 找到NFA状态集合中优先级最高的接受状态对应的Pattern
+     * precedence越小优先级越高，precedence相同时，合并时排在前面的Pattern优先
+     *
+     * @param nfaStates NFA状态集合
+     * @return 优先级最高的Pattern，集合中没有接受状态则返回null
+     */
+    public Pattern findPatternByNFAStates(Set<NFAState> nfaStates) {
+        if (endStatePatterns == null) {
+            for (NFAState nfaState : nfaStates) {
+                if (nfaState.isEndState()) return pattern;
+            }
+            return null;
+        }
+
+        Pattern winner = null;
+        for (Map.Entry<NFAState, Pattern> entry : endStatePatterns.entrySet()) {
+            Pattern candidate = entry.getValue();
+            if (nfaStates.contains(entry.getKey()) && (winner == null || candidate.precedence < winner.precedence)) {
+                winner = candidate;
+            }
+        }
+        return winner;
+    }
+
+    /**
+     * 获取每个接受状态对应的Pattern，按合并时的顺序排列
+     * 未合并的NFA中所有接受状态都对应该NFA的Pattern
+     *
+     * @return 接受状态到Pattern的映射
+     */
+    public Map<NFAState, Pattern> getEndStatePatterns() {
+        if (endStatePatterns != null) return endStatePatterns;
+
+        Map<NFAState, Pattern> patterns = new LinkedHashMap<>();
+        for (NFAState state : states) {
+            if (state.isEndState()) patterns.put(state, pattern);
+        }
+        return patterns;
+    }
+
     /**
      * 克隆一个新的NFA，新NFA的状态的id是原NFA状态的id+当前被分配的id
      *
@@ -545,22 +681,19 @@ public class NFA {
             for (NFAEdge oldEdge : oldState.getAdjacentcentList()) {
                 NFAState oldDestState = oldEdge.getDestState();
 
-                //略过目的边为本边且字符为epsilong的默认边
-                if (!(oldDestState.equals(oldState) && oldEdge.getLabel() == NFA.EPSILON)) {
-                    NFAState destState = null;
-                    //有该旧NFA状态，添加新状态
-                    if (oldStateToNewState.containsKey(oldDestState)) {
-                        destState = oldStateToNewState.get(oldDestState);
-                    } else {
-                        destState = new NFAState(id++, oldDestState.isEndState());
-                        newStates.add(destState);
-                        oldStateToNewState.put(oldDestState, destState);
-                    }
-
-                    assert destState != null : ": 没有找到对应旧NFA状态新NFA状态";
-
-                    newState.addEdge(new NFAEdge(destState, oldEdge.getLabel()));
+                NFAState destState = null;
+                //有该旧NFA状态，添加新状态
+                if (oldStateToNewState.containsKey(oldDestState)) {
+                    destState = oldStateToNewState.get(oldDestState);
+                } else {
+                    destState = new NFAState(id++, oldDestState.isEndState());
+                    newStates.add(destState);
+                    oldStateToNewState.put(oldDestState, destState);
                 }
+
+                assert destState != null : ": 没有找到对应旧NFA状态新NFA状态";
+
+                newState.addEdge(new NFAEdge(destState, oldEdge.getLabel()));
             }
 
             //如果是结束状态，就在结束状态集合中加入该状态，并在新的pattern映射中加入映射
@@ -32,7 +32,6 @@ public class NFAState {
     public NFAState(int id, boolean isEndState) {
         this(id);
         this.isEndState = isEndState;
-        initAdjacentList();
     }
 
     public boolean isEndState() {
@@ -48,7 +47,7 @@ public class NFAState {
     }
 
     /**
-     * 找到能通过label到达的NFA状态集合
+     * 找到能通过label到达的NFA状态集合，不包括隐含的到自己的epsilon边
      * @param label 标记
      * @return 能到达的NFA状态集合
      */
@@ -83,12 +82,10 @@ public class NFAState {
     }
 
     /**
-     * 初始化邻接表
+     * 初始化邻接表，每个状态通过epsilon到自己的边是隐含的，不保存在邻接表中
      */
     private void initAdjacentList() {
-        adjacentList = new ArrayList<>();
-        //新建状态的时候新建一条通过epsilon到自己的边
-        adjacentList.add(new NFAEdge(this, NFA.EPSILON));
+        adjacentList = new ArrayList<>(2);
     }
 
     /**
@@ -97,8 +94,6 @@ public class NFAState {
     public void printNFAState(){
         System.out.println("id：" + id + "        结束状态：" + isEndState);
         for (NFAEdge edge : adjacentList){
-            //不打印默认的到自己的epsilon边
-            if(edge.getDestState().id != id)
             System.out.println("符号：" + edge.getLabel() +"       目的状态id：" + edge.getDestState().id);
         }
     }
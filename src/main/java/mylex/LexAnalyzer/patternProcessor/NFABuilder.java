@@ -0,0 +1,752 @@
+package mylex.LexAnalyzer.patternProcessor;
+
+import mylex.LexAnalyzer.nfa.CompactNFA;
+import mylex.LexAnalyzer.nfa.NFA;
+import mylex.vo.Pattern;
+
+import java.util.*;
+
+/**
+ * 用Thompson算法将一个正则表达式的后缀表达式构建为NFA
+ * 状态为从0开始的整数，边按创建的顺序写入可增长的平行数组，不创建NFAState和NFAEdge对象，
+ * 构建完成后只保留从开始状态可达的状态，按边的源状态整理为CSR格式的CompactNFA
+ * 后缀表达式的栈中每个NFA片段的状态和边在数组中各占一段连续的区间，且片段按区间的先后入栈，
+ * 因此合并栈顶的片段后结果仍然占一段连续的区间，{n,m}克隆片段只需把区间内的边复制一份并平移状态编号
+ * 构建过程中的状态（数组和后缀表达式的栈）都在该对象中，每次构建使用一个新的对象，
+ * 因此PatternProcessor没有可变状态，可以在多个线程中同时构建不同Pattern的NFA
+ */
+class NFABuilder {
+
+    /**
+     * 字母表全集
+     */
+    private Set<Character> fullAlphabet;
+
+    /**
+     * 下一个分配的状态
+     */
+    private int stateCount;
+
+    /**
+     * 边的源状态、目的状态和标号，标号为NFA.EPSILON时为epsilon边
+     */
+    private int[] edgeSources = new int[16];
+
+    private int[] edgeTargets = new int[16];
+
+    private char[] edgeLabels = new char[16];
+
+    private int edgeCount;
+
+    /**
+     * 正则表达式后缀表达式的栈，保存后缀表达式以及产生的NFA片段
+     */
+    private Stack<Object> regExpPostfixStack;
+
+    /**
+     * NFA片段，只有一个开始状态和一个结束状态，状态和边各占数组中的一段连续区间
+     */
+    private static class Fragment {
+
+        final int stateBegin;
+
+        final int stateEnd;
+
+        final int edgeBegin;
+
+        final int edgeEnd;
+
+        final int startState;
+
+        final int endState;
+
+        Fragment(int stateBegin, int stateEnd, int edgeBegin, int edgeEnd, int startState, int endState) {
+            this.stateBegin = stateBegin;
+            this.stateEnd = stateEnd;
+            this.edgeBegin = edgeBegin;
+            this.edgeEnd = edgeEnd;
+            this.startState = startState;
+            this.endState = endState;
+        }
+
+        /**
+         * 是否为开始状态经过若干字符直接到达结束状态的字符集合
+         */
+        boolean isCharSet(char[] edgeLabels) {
+            if (stateEnd - stateBegin != 2 || edgeEnd == edgeBegin) return false;
+            for (int edge = edgeBegin; edge < edgeEnd; edge++) {
+                if (edgeLabels[edge] == NFA.EPSILON) return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * @param fullAlphabet 字母表全集
+     */
+    NFABuilder(Set<Character> fullAlphabet) {
+        this.fullAlphabet = fullAlphabet;
+        regExpPostfixStack = new Stack<>();
+    }
+
+    /**
+     * 根据语法分析树的后缀表达式,构建NFA
+     *
+     * @param regExpPostfix 语法分析树的后缀表达式
+     * @return 对应该语法分析树的后缀表达式的紧凑NFA，开始状态为0，接受状态对应pattern
+     */
+    CompactNFA build(String regExpPostfix, Pattern pattern) {
+        //当前所处的中括号层数，中括号内的连字符表示范围
+        int bracketDepth = 0;
+        for (int i = 0; i < regExpPostfix.length(); i++) {
+            char c = regExpPostfix.charAt(i);
+            // 中括号内遇到连字符，先push，在遇到后中括号后再处理
+            if (c == '-' && bracketDepth > 0) {
+                regExpPostfixStack.push(c);
+                continue;
+            }
+            if (PatternProcessor.isOperand(c)) {
+                regExpPostfixStack.push(createSimpleNFA(c));
+                continue;
+            }
+            //求一个正则表达式的闭包的NFA
+            if (c == '*') {
+                meetStar();
+                continue;
+            }
+            //求两个正则表达式的并的NFA
+            if (c == '|') {
+                meetVerticalBar();
+                continue;
+            }
+            //支持模式零次或一次出现
+            if (c == '?') {
+                meetQuestionMark();
+                continue;
+            }
+            //支持模式一次或多次出现
+            if (c == '+') {
+                meetPlus();
+                continue;
+            }
+            //转译处理
+            if (c == '\\') {
+                assert i < regExpPostfix.length() - 1 : ": 正则表达式有误";
+                char cNeedToTransfer = regExpPostfix.charAt(++i);
+                //操作符需要转译，直接传入操作符
+                if (RegexpCharType.isOperator(cNeedToTransfer)) transfer(cNeedToTransfer);
+                else {
+                    assert cNeedToTransfer == 'n' || cNeedToTransfer == 't' :
+                            ": \\后面需要跟一个操作符或n或t(\\\n表示换行符，\\\\t表示制表符)";
+                    if (cNeedToTransfer == 'n') transfer('\n');
+                    if (cNeedToTransfer == 't') transfer('\t');
+                }
+                continue;
+            }
+            //通配符处理
+            if (c == '.') {
+                meetPeriod();
+                continue;
+            }
+
+            /*
+             * 括号处理
+             */
+
+            //小括号里面的NFA进行连接
+            if (c == '(') {
+                regExpPostfixStack.push(c);
+                continue;
+            }
+            //对左括号之前的所有NFA状态做连接
+            if (c == ')') {
+                meetRightParenthsis();
+                continue;
+            }
+
+            //中括号里面的NFA进行union
+            if (c == '[') {
+                bracketDepth++;
+                regExpPostfixStack.push(c);
+                continue;
+            }
+            //对左右括号之间的所有NFA状态做并
+            if (c == ']') {
+                bracketDepth--;
+                meetRightBracket();
+                continue;
+            }
+
+            //对左右大括号之间的表达式进行解析，找到前面一个NFA，对其进行重复连接, 大括号里分三种情况
+            //1. {n} n是一个非负整数。匹配确定的n次
+            //2. {n,} n是一个非负整数。至少匹配n次
+            //3. {n,m} m和n均为非负整数，其中n<=m。最少匹配n次且最多匹配m次
+            if (c == '{') {
+                while (i < regExpPostfix.length() && c != '}') {
+                    regExpPostfixStack.push(c);
+                    c = regExpPostfix.charAt(++i);
+                }
+                assert c == '}' : ": {没有匹配的}";
+                meetRightBrace();
+            }
+        }
+
+        //最后将栈中剩余的所有的NFA全部连接起来
+        List<Fragment> needToConcat = new ArrayList<>();
+        assert !regExpPostfixStack.empty() : ": 正则表达式有误";
+        while (!regExpPostfixStack.empty()) {
+            Object obj = regExpPostfixStack.pop();
+
+            assert obj instanceof Fragment : ": 正则表达式有误";
+            needToConcat.add(0, (Fragment) obj);
+        }
+        Fragment nfa = concatNFA(needToConcat);
+
+        return compact(nfa, pattern);
+    }
+
+    /*
+     * 对后缀表达式到NFA的解析
+     */
+
+    /**
+     * 直接生成一个简单的NFA，开始状态由字符c连接到结束状态
+     *
+     * @param c 传入的字符
+     */
+    private Fragment createSimpleNFA(char c) {
+        int stateBegin = stateCount;
+        int edgeBegin = edgeCount;
+        int startState = stateCount++;
+        int endState = stateCount++;
+        addEdge(startState, endState, c);
+        return fragment(stateBegin, edgeBegin, startState, endState);
+    }
+
+    /**
+     * 正则表达式的后缀表达式中遇见*，求取栈顶NFA的闭包
+     */
+    private void meetStar() {
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        regExpPostfixStack.push(closure((Fragment) regExpPostfixStack.pop()));
+    }
+
+    /**
+     * 正则表达式后缀表达式中遇见|，求取栈顶两个NFA的并
+     */
+    private void meetVerticalBar() {
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        Fragment second = (Fragment) regExpPostfixStack.pop();
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        Fragment first = (Fragment) regExpPostfixStack.pop();
+        regExpPostfixStack.push(union(first, second));
+    }
+
+    /**
+     * 后缀表达式中遇见?，修改栈顶NFA，支持该NFA模式的零次或一次出现
+     */
+    private void meetQuestionMark() {
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        regExpPostfixStack.push(zeroOrOnce((Fragment) regExpPostfixStack.pop()));
+    }
+
+    /**
+     * 后缀表达式中遇见+，修改栈顶NFA，支持该NFA模式的一次或多次出现
+     */
+    private void meetPlus() {
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        regExpPostfixStack.push(onceOrMany((Fragment) regExpPostfixStack.pop()));
+    }
+
+    /**
+     * 词法分析树遇见\，实现转译
+     */
+    private void transfer(char c) {
+        assert regExpPostfixStack.peek() instanceof Character : ": 正则表达式有误";
+        assert RegexpCharType.isOperator(c) : ": \\后面应该接一个操作符实现转译";
+        regExpPostfixStack.push(createSimpleNFA(c));
+    }
+
+    /**
+     * 词法分析树遇见通配符.，生成一个NFA，开始状态到结束状态由字符表中所有字符的边连接起来
+     */
+    private void meetPeriod() {
+        int stateBegin = stateCount;
+        int edgeBegin = edgeCount;
+        int startState = stateCount++;
+        int endState = stateCount++;
+        for (Character c : fullAlphabet) {
+            if (c != '\n') addEdge(startState, endState, c);
+        }
+        regExpPostfixStack.push(fragment(stateBegin, edgeBegin, startState, endState));
+    }
+
+    /**
+     * 后缀表达式中遇见)，对相应的左括号之前的所有NFA做连接操作
+     */
+    private void meetRightParenthsis() {
+        List<Fragment> needToConcat = new ArrayList<>();
+        assert !regExpPostfixStack.empty() : ": 正则表达式有误";
+        while (!regExpPostfixStack.empty()) {
+            Object obj = regExpPostfixStack.pop();
+            //判断是否是字符，若是字符，则必是(,说明该（）分组结束
+            if (obj instanceof Character) {
+                assert (Character) obj == '(' : "：没有找到匹配的(";
+                break;
+            }
+            if (obj instanceof Fragment) {
+                needToConcat.add(0, (Fragment) obj);
+            }
+        }
+
+        //如果（）中间有被压栈的NFA
+        if (!needToConcat.isEmpty()) regExpPostfixStack.push(concatNFA(needToConcat));
+    }
+
+    /**
+     * 遇见右中括号，对左中括号之前的所有NFA进行并操作,中括号当中可能含有-
+     */
+    private void meetRightBracket() {
+        List<Fragment> needToUnion = new ArrayList<>();
+        assert !regExpPostfixStack.empty() : ": 正则表达式有误";
+        while (!regExpPostfixStack.empty()) {
+            Object obj = regExpPostfixStack.pop();
+            //判断是否是字符，若是字符，则必是(,说明该（）分组结束
+            if (obj instanceof Character) {
+                //遇到连字符
+                if ((Character) obj == '-') {
+                    //拿到连字符前面一个NFA
+                    assert needToUnion.size() > 0 : ": 连字符后面需要有一个数字或字母";
+                    Fragment postNFA = needToUnion.get(0);
+                    assert !regExpPostfixStack.empty() && regExpPostfixStack.peek() instanceof Fragment : ": 连字符前面需要有一个数字或字母";
+                    Fragment preNFA = (Fragment) regExpPostfixStack.pop();
+
+                    assert preNFA.edgeEnd - preNFA.edgeBegin == 1 && postNFA.edgeEnd - postNFA.edgeBegin == 1 &&
+                            preNFA.isCharSet(edgeLabels) && postNFA.isCharSet(edgeLabels) : ": 正则表达式有误";
+
+                    //获取连字符的左右两个字符
+                    char preChar = edgeLabels[preNFA.edgeBegin];
+                    char postChar = edgeLabels[postNFA.edgeBegin];
+
+                    assert (Character.isDigit(preChar) && Character.isDigit(postChar)) ||
+                            (Character.isUpperCase(preChar) && Character.isUpperCase(postChar)) ||
+                            (Character.isLowerCase(preChar) && Character.isLowerCase(postChar)) :
+                            ": 连字符左右两个字符应同为数字或大写字母或小写字母";
+                    assert preChar <= postChar : ": 连字符左边的字符应该小于等于右边的字符";
+
+                    //从连字符左边的字符的后一个字符开始，一直加到连字符右边的字符
+                    for (int i = postChar - preChar - 1; i >= 1; i--) {
+                        needToUnion.add(0, createSimpleNFA((char) (preChar + i)));
+                    }
+
+                    needToUnion.add(0, preNFA);
+
+                }
+                //不然遇到左中括号，跳出循环
+                else {
+                    assert (Character) obj == '[' : "：没有找到匹配的[";
+                    break;
+                }
+            }
+            if (obj instanceof Fragment) {
+                needToUnion.add(0, (Fragment) obj);
+            }
+        }
+
+        //说明[]中间有被压栈的NFA
+        if (!needToUnion.isEmpty()) regExpPostfixStack.push(unionCharNFA(needToUnion));
+    }
+
+    /**
+     * 对中括号内的NFA做并操作，若都是字符集合，则合并为一个开始状态经所有字符到达结束状态的NFA，
+     * 这样字符集合中的字符在NFA中的转换完全相同，可以划分到同一个字符等价类中
+     * 这些片段占据了数组末尾的区间，合并时回收它们的状态和边
+     *
+     * @param needToUnion NFA集合
+     * @return 最终得到的NFA
+     */
+    private Fragment unionCharNFA(List<Fragment> needToUnion) {
+        Set<Character> charSet = new LinkedHashSet<>();
+        int stateBegin = Integer.MAX_VALUE;
+        int edgeBegin = Integer.MAX_VALUE;
+        for (Fragment nfa : needToUnion) {
+            if (!nfa.isCharSet(edgeLabels)) return unionNFA(needToUnion);
+            for (int edge = nfa.edgeBegin; edge < nfa.edgeEnd; edge++) {
+                charSet.add(edgeLabels[edge]);
+            }
+            stateBegin = Math.min(stateBegin, nfa.stateBegin);
+            edgeBegin = Math.min(edgeBegin, nfa.edgeBegin);
+        }
+
+        stateCount = stateBegin;
+        edgeCount = edgeBegin;
+        int startState = stateCount++;
+        int endState = stateCount++;
+        for (char c : charSet) {
+            addEdge(startState, endState, c);
+        }
+        return fragment(stateBegin, edgeBegin, startState, endState);
+    }
+
+    /**
+     * 遇见左大括号，对左边大括号到右边大括号之间表达式解析后，对栈顶NFA进行重复连接
+     */
+    private void meetRightBrace() {
+        assert !regExpPostfixStack.empty() : ": 正则表达式有误";
+
+        int num = 0;
+        int minTime = 0;
+        int maxTime = 0;
+        int count = 0;
+        //标志{}内的三种状态, 1:{n} 2:{n,} 3:{n,m}, 初始化为1
+        int situation = 1;
+        Object obj = null;
+        while (!regExpPostfixStack.empty()) {
+            obj = regExpPostfixStack.pop();
+            //验证是否是字符，可能是数字也可能是,还可能是{
+            assert obj instanceof Character : ": 正则表达式有误";
+            if ((Character) obj == '{') break;
+                //{}中间有，说明是{n,}或者{n,m}这两种情况
+            else if ((Character) obj == ',') {
+                maxTime = num;
+                num = 0;    //num置零
+                //判断是{n,} 还是{n,m}
+                if (count == 0) situation = 2;
+                else {
+                    situation = 3;
+                    count = 0;
+                }
+            } else {
+                assert Character.isDigit((Character) obj) : "{}中不能有其它的操作数";
+                num = num + ((Character) obj - '0') * (int) Math.pow(10, count);
+                count++;
+            }
+        }
+
+        assert (Character) obj == '{' : ": }没有匹配的{";
+        minTime = num;
+        assert minTime >= 0 : ": {}中的整数为非负整数";
+
+        assert regExpPostfixStack.peek() instanceof Fragment : ": 正则表达式有误";
+        Fragment nfa = (Fragment) regExpPostfixStack.pop();
+        //{n}
+        if (situation == 1) regExpPostfixStack.push(concatSelfCertainTimes(nfa, minTime));
+        //{n,}
+        else if (situation == 2) regExpPostfixStack.push(concatSelfLeastTimes(nfa, minTime));
+        //{n,m}
+        else {
+            assert maxTime >= 0 : ": {}中的整数为非负整数";
+            assert minTime <= maxTime : ": 大括号内的左边数字需小于等于右边数字";
+            regExpPostfixStack.push(concatSelfMinToMax(nfa, minTime, maxTime));
+        }
+    }
+
+    /**
+     * 对传入的NFA集合采用并操作
+     *
+     * @param needToUnion NFA集合
+     * @return 最终得到的NFA
+     */
+    private Fragment unionNFA(List<Fragment> needToUnion) {
+        assert !needToUnion.isEmpty() : " []之间不可能为空";
+        Fragment nfa = needToUnion.get(0);
+        for (int i = 1; i < needToUnion.size(); i++) {
+            nfa = union(nfa, needToUnion.get(i));
+        }
+        return nfa;
+    }
+
+    /**
+     * 对传入NFA集合采用连接操作
+     *
+     * @param needToConcat NFA集合
+     * @return 最终得到的NFA
+     */
+    private Fragment concatNFA(List<Fragment> needToConcat) {
+        assert !needToConcat.isEmpty() : "：（）之间不可能为空";
+        Fragment nfa = needToConcat.get(0);
+        for (int i = 1; i < needToConcat.size(); i++) {
+            nfa = concat(nfa, needToConcat.get(i));
+        }
+        return nfa;
+    }
+
+    /*
+     * 在RE转NFA中，运用Thompson算法，实现并，连接，闭包三种运算，以及?、+和{}
+     */
+
+    /**
+     * 两个正则表达式的并的NFA，新的开始状态经epsilon边到达两个NFA的开始状态，两个NFA的结束状态经epsilon边到达新的结束状态
+     */
+    private Fragment union(Fragment first, Fragment second) {
+        int startState = stateCount++;
+        int endState = stateCount++;
+        addEdge(startState, first.startState, NFA.EPSILON);
+        addEdge(startState, second.startState, NFA.EPSILON);
+        addEdge(first.endState, endState, NFA.EPSILON);
+        addEdge(second.endState, endState, NFA.EPSILON);
+        return fragment(Math.min(first.stateBegin, second.stateBegin), Math.min(first.edgeBegin, second.edgeBegin),
+                startState, endState);
+    }
+
+    /**
+     * 两个正则表达的连接的NFA，后继NFA开始状态的边复制到当前NFA的结束状态上，不新增状态
+     * 后继NFA的开始状态仍可能被其中到开始状态的边到达，因此保留它的边
+     */
+    private Fragment concat(Fragment nfa, Fragment postNFA) {
+        copyEdges(postNFA, nfa.endState);
+        return fragment(Math.min(nfa.stateBegin, postNFA.stateBegin), Math.min(nfa.edgeBegin, postNFA.edgeBegin),
+                nfa.startState, postNFA.endState);
+    }
+
+    /**
+     * 一个正则表达式的闭包的NFA
+     */
+    private Fragment closure(Fragment nfa) {
+        int startState = stateCount++;
+        int endState = stateCount++;
+        //添加两条边，分别从当前的开始状态到原开始状态, 从当前开始状态到当前结束状态
+        addEdge(startState, nfa.startState, NFA.EPSILON);
+        addEdge(startState, endState, NFA.EPSILON);
+        //添加两条边，分别从原结束状态到原开始状态，从原结束状态到当前结束状态
+        addEdge(nfa.endState, nfa.startState, NFA.EPSILON);
+        addEdge(nfa.endState, endState, NFA.EPSILON);
+        return fragment(nfa.stateBegin, nfa.edgeBegin, startState, endState);
+    }
+
+    /**
+     * 表示当前模式出现零次或一次，只需新增一条从开始状态到结束状态的epsilon边
+     */
+    private Fragment zeroOrOnce(Fragment nfa) {
+        addEdge(nfa.startState, nfa.endState, NFA.EPSILON);
+        return fragment(nfa.stateBegin, nfa.edgeBegin, nfa.startState, nfa.endState);
+    }
+
+    /**
+     * 表示当前模式出现一次或多次，新增一条从当前结束状态到开始状态的一条epsilon边
+     */
+    private Fragment onceOrMany(Fragment nfa) {
+        addEdge(nfa.endState, nfa.startState, NFA.EPSILON);
+        return fragment(nfa.stateBegin, nfa.edgeBegin, nfa.startState, nfa.endState);
+    }
+
+    /**
+     * 当前NFA自身与自身的克隆连接，{0}与?相同
+     *
+     * @param times 该NFA连接的次数，包括自身，所以只与克隆连接times-1次
+     */
+    private Fragment concatSelfCertainTimes(Fragment nfa, int times) {
+        if (times == 0) return zeroOrOnce(nfa);
+        boolean startReentered = hasEdgeTo(nfa, nfa.startState);
+        int endState = nfa.endState;
+        for (int repeatTimeNecessary = 1; repeatTimeNecessary < times; repeatTimeNecessary++) {
+            endState = appendClone(nfa, endState, startReentered);
+        }
+        return fragment(nfa.stateBegin, nfa.edgeBegin, nfa.startState, endState);
+    }
+
+    /**
+     * 解决大括号{n,}的NFA连接情况,至少出现n次，包括自身
+     */
+    private Fragment concatSelfLeastTimes(Fragment nfa, int times) {
+        assert times >= 0 : ": {}中只能为非负整数";
+        //如果至少为0次 等同于*
+        if (times == 0) return closure(nfa);
+        //如果至少为1次 等同于+
+        if (times == 1) return onceOrMany(nfa);
+        //如果至少为n次 (n >= 2)，先连接出现n-1次的NFA，再连接一次，最后一次可以经epsilon边回到其开始状态重复
+        boolean startReentered = hasEdgeTo(nfa, nfa.startState);
+        Fragment result = concatSelfCertainTimes(nfa, times - 1);
+        int lastEndState = result.endState;
+        int endState = appendClone(nfa, lastEndState, startReentered);
+        addEdge(endState, lastEndState, NFA.EPSILON);
+        return fragment(nfa.stateBegin, nfa.edgeBegin, nfa.startState, endState);
+    }
+
+    /**
+     * 解决大括号{n,m}的NFA连接情况，先连接出现n次的NFA，再连接m-n个可选的NFA，
+     * 每个可选的NFA的开始状态（即前一个NFA的结束状态）有一条到其结束状态的epsilon边
+     * {0,m}中必须出现的部分按{0}处理为可选的一次，其后只需m-1个可选的NFA
+     */
+    private Fragment concatSelfMinToMax(Fragment nfa, int minTimes, int maxTimes) {
+        int optionalTimes = minTimes == 0 ? maxTimes - 1 : maxTimes - minTimes;
+        boolean startReentered = hasEdgeTo(nfa, nfa.startState);
+        Fragment result = concatSelfCertainTimes(nfa, minTimes);
+        int endState = result.endState;
+        for (int repeatTimeOptional = 0; repeatTimeOptional < optionalTimes; repeatTimeOptional++) {
+            int optionalEndState = appendClone(nfa, endState, startReentered);
+            addEdge(endState, optionalEndState, NFA.EPSILON);
+            endState = optionalEndState;
+        }
+        return fragment(nfa.stateBegin, nfa.edgeBegin, nfa.startState, endState);
+    }
+
+    /**
+     * 在状态attachState后面连接片段的一个克隆，与克隆片段后用concat连接到attachState上相同
+     * 片段区间内的边都在片段的状态之间，其后连接时复制到片段状态上的边不在区间内，不会被克隆
+     * 片段的开始状态没有入边时，克隆的开始状态直接取为attachState，不分配新状态也不复制边；
+     * 否则（如a+）克隆的开始状态仍会被重新进入，需要单独的状态，再把它的边复制到attachState上
+     *
+     * @param nfa            需要克隆的片段
+     * @param attachState    连接克隆的状态
+     * @param startReentered 片段中是否有到开始状态的边
+     * @return 克隆的结束状态
+     */
+    private int appendClone(Fragment nfa, int attachState, boolean startReentered) {
+        int shift = stateCount - nfa.stateBegin;
+        int start = nfa.startState;
+        if (startReentered) {
+            stateCount += nfa.stateEnd - nfa.stateBegin;
+            int edgeEnd = edgeCount;
+            cloneEdges(nfa, shift, -1, attachState);
+            //克隆的开始状态的边复制到attachState上
+            for (int edge = edgeEnd; edge < edgeEnd + nfa.edgeEnd - nfa.edgeBegin; edge++) {
+                if (edgeSources[edge] == start + shift) addEdge(attachState, edgeTargets[edge], edgeLabels[edge]);
+            }
+            return nfa.endState + shift;
+        }
+        //开始状态之后的状态编号前移一位
+        stateCount += nfa.stateEnd - nfa.stateBegin - 1;
+        cloneEdges(nfa, shift, start, attachState);
+        return mapState(nfa.endState, shift, start, attachState);
+    }
+
+    /**
+     * 复制片段区间内的边，状态s映射为mapState(s, shift, mergedState, attachState)
+     */
+    private void cloneEdges(Fragment nfa, int shift, int mergedState, int attachState) {
+        for (int edge = nfa.edgeBegin; edge < nfa.edgeEnd; edge++) {
+            assert edgeSources[edge] >= nfa.stateBegin && edgeSources[edge] < nfa.stateEnd : ": 片段中的边不在片段的状态上";
+            addEdge(mapState(edgeSources[edge], shift, mergedState, attachState),
+                    mapState(edgeTargets[edge], shift, mergedState, attachState), edgeLabels[edge]);
+        }
+    }
+
+    /**
+     * 克隆时状态的映射：mergedState映射为attachState，其余状态平移shift，在mergedState之后的状态再前移一位；
+     * mergedState为-1时只平移
+     */
+    private static int mapState(int state, int shift, int mergedState, int attachState) {
+        if (mergedState < 0 || state < mergedState) return state + shift;
+        if (state == mergedState) return attachState;
+        return state + shift - 1;
+    }
+
+    /**
+     * 片段区间内是否有到state的边
+     */
+    private boolean hasEdgeTo(Fragment nfa, int state) {
+        for (int edge = nfa.edgeBegin; edge < nfa.edgeEnd; edge++) {
+            if (edgeTargets[edge] == state) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 把片段开始状态的边复制到另一个状态上
+     */
+    private void copyEdges(Fragment nfa, int srcState) {
+        for (int edge = nfa.edgeBegin; edge < nfa.edgeEnd; edge++) {
+            if (edgeSources[edge] == nfa.startState) addEdge(srcState, edgeTargets[edge], edgeLabels[edge]);
+        }
+    }
+
+    /**
+     * 由区间的开始位置构造片段，区间到当前数组末尾为止
+     */
+    private Fragment fragment(int stateBegin, int edgeBegin, int startState, int endState) {
+        return new Fragment(stateBegin, stateCount, edgeBegin, edgeCount, startState, endState);
+    }
+
+    private void addEdge(int srcState, int destState, char label) {
+        if (edgeCount == edgeSources.length) {
+            edgeSources = Arrays.copyOf(edgeSources, edgeCount * 2);
+            edgeTargets = Arrays.copyOf(edgeTargets, edgeCount * 2);
+            edgeLabels = Arrays.copyOf(edgeLabels, edgeCount * 2);
+        }
+        edgeSources[edgeCount] = srcState;
+        edgeTargets[edgeCount] = destState;
+        edgeLabels[edgeCount++] = label;
+    }
+
+    /**
+     * 从开始状态广度优先遍历，给可达的状态重新编号，把边按源状态整理为CSR格式
+     * 每个状态的边保持创建的顺序，到自身的epsilon边是隐含的，不保存
+     *
+     * @param nfa     构建完成的NFA片段
+     * @param pattern 接受状态对应的Pattern
+     * @return 紧凑NFA
+     */
+    private CompactNFA compact(Fragment nfa, Pattern pattern) {
+        //先按源状态对所有边做稳定的计数排序
+        int[] outOffsets = new int[stateCount + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            outOffsets[edgeSources[edge] + 1]++;
+        }
+        for (int state = 0; state < stateCount; state++) {
+            outOffsets[state + 1] += outOffsets[state];
+        }
+        int[] outEdges = new int[edgeCount];
+        int[] next = Arrays.copyOf(outOffsets, stateCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            outEdges[next[edgeSources[edge]]++] = edge;
+        }
+
+        //广度优先编号，order为新编号到原状态的映射
+        int[] indexes = new int[stateCount];
+        Arrays.fill(indexes, -1);
+        int[] order = new int[stateCount];
+        int reachableCount = 0;
+        int epsilonCount = 0;
+        int labeledCount = 0;
+        indexes[nfa.startState] = reachableCount;
+        order[reachableCount++] = nfa.startState;
+        for (int i = 0; i < reachableCount; i++) {
+            int state = order[i];
+            for (int j = outOffsets[state]; j < outOffsets[state + 1]; j++) {
+                int edge = outEdges[j];
+                int destState = edgeTargets[edge];
+                if (edgeLabels[edge] != NFA.EPSILON) labeledCount++;
+                else if (destState != state) epsilonCount++;
+                if (indexes[destState] < 0) {
+                    indexes[destState] = reachableCount;
+                    order[reachableCount++] = destState;
+                }
+            }
+        }
+
+        int[] epsilonOffsets = new int[reachableCount + 1];
+        int[] epsilonTargets = new int[epsilonCount];
+        int[] labeledOffsets = new int[reachableCount + 1];
+        int[] labeledTargets = new int[labeledCount];
+        char[] labels = new char[labeledCount];
+        Set<Character> inputAlphabet = new HashSet<>();
+        epsilonCount = 0;
+        labeledCount = 0;
+        for (int i = 0; i < reachableCount; i++) {
+            int state = order[i];
+            epsilonOffsets[i] = epsilonCount;
+            labeledOffsets[i] = labeledCount;
+            for (int j = outOffsets[state]; j < outOffsets[state + 1]; j++) {
+                int edge = outEdges[j];
+                int destState = indexes[edgeTargets[edge]];
+                if (edgeLabels[edge] != NFA.EPSILON) {
+                    labeledTargets[labeledCount] = destState;
+                    labels[labeledCount++] = edgeLabels[edge];
+                    inputAlphabet.add(edgeLabels[edge]);
+                } else if (destState != i) {
+                    epsilonTargets[epsilonCount++] = destState;
+                }
+            }
+        }
+        epsilonOffsets[reachableCount] = epsilonCount;
+        labeledOffsets[reachableCount] = labeledCount;
+
+        //接受状态不可达时NFA不接受任何串
+        int[] acceptStates = indexes[nfa.endState] < 0 ? new int[0] : new int[]{indexes[nfa.endState]};
+        Pattern[] acceptPatterns = new Pattern[acceptStates.length];
+        Arrays.fill(acceptPatterns, pattern);
+        return new CompactNFA(epsilonOffsets, epsilonTargets, labeledOffsets, labeledTargets, labels,
+                acceptStates, acceptPatterns, inputAlphabet, pattern);
+    }
+}
@@ -7,6 +7,11 @@ import java.util.*;
 
 public class LexFileParser {
 
+    /**
+     * 跳过该模式匹配到的词素的标志
+     */
+    private static final String SKIP_FLAG = "skip";
+
     /**
      * 获取文件中所有的pattern
      * @return pattern的序列
@@ -33,6 +38,25 @@ public class LexFileParser {
             e.printStackTrace();
         }
 
+        List<Pattern> patterns = getPatterns(br);
+
+        try {
+            br.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        return patterns;
+    }
+
+    /**
+     * 解析.l文件的内容，每行为 name:名称 [skip] pattern:正则表达式
+     * 名称之后、pattern之前写有skip的模式匹配到的词素会被跳过，不生成Token，如空白和注释
+     *
+     * @param br .l文件的内容
+     * @return pattern的序列
+     */
+    public List<Pattern> getPatterns(BufferedReader br) {
         //当前Pattern的优先级，precedence越大，优先级越低
         int precedence = 0;
 
@@ -48,6 +72,13 @@ public class LexFileParser {
                 int index = line.indexOf(' ');
                 String name = line.substring(0, index);
                 while (line.charAt(index) == ' ') index++;
+
+                //可选的skip标志
+                boolean skip = line.startsWith(SKIP_FLAG + ' ', index);
+                if (skip) {
+                    index += SKIP_FLAG.length();
+                    while (line.charAt(index) == ' ') index++;
+                }
                 assert line.substring(index, index + 8).equals("pattern:") : ".l文件不符标准";
 
                 String regExp = line.substring(index);
@@ -62,7 +93,7 @@ public class LexFileParser {
                 //不允许有重复的模式名称存在
                 assert !patternMap.containsKey(name) : ".l文件中有重复的模式名称存在";
 
-                Pattern pattern = new Pattern(name, regExp, precedence++);
+                Pattern pattern = new Pattern(name, regExp, precedence++, skip);
                 patternMap.put(name, pattern);
                 patterns.add(pattern);
             }
@@ -70,12 +101,6 @@ public class LexFileParser {
             e.printStackTrace();
         }
 
-        try {
-            br.close();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-
         return patterns;
     }
 
@@ -1,11 +1,13 @@
 package mylex;
 
 
-import mylex.LexAnalyzer.LexAnalyzer;
+import mylex.LexAnalyzer.TokenizerCache;
 import mylex.LexAnalyzer.Tokenizer;
 import mylex.vo.Pattern;
-import mylex.vo.Token;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
 
 /**
@@ -21,30 +23,41 @@ import java.util.List;
 public class MyLexController {
 
     private LexFileParser lexFileParser;
-    private LexAnalyzer lexAnalyzer;
+    private TokenizerCache tokenizerCache;
 
     public MyLexController(){
         lexFileParser = new LexFileParser();
-        lexAnalyzer = new LexAnalyzer();
+        tokenizerCache = new TokenizerCache(TokenizerCache.defaultDirectory());
     }
 
     public void getTokens() {
 
         //从.l文件中获取Pattern
         List<Pattern> patterns = lexFileParser.getPatterns();
-        //解析Pattern，构建一个基于最简DFA的词法分析器
-        Tokenizer tokenizer = lexAnalyzer.createTokenizer(patterns);
+        //解析Pattern，构建一个基于最简DFA的词法分析器，.l文件没有变化时直接从缓存加载
+        Tokenizer tokenizer = tokenizerCache.createTokenizer(patterns);
 
-        //读入需要解析的源文件，获取源文件内容
+        //打开需要解析的源文件，源文件内容通过固定大小的缓冲区流式读入
         SrcFileReader srcFileReader = new SrcFileReader();
-        String content = srcFileReader.getFileContent();
+        Reader reader = srcFileReader.getFileReader();
 
-        //解析源文件中的token序列
-        List<Token> tokens = tokenizer.getTokens(content);
-
-        //输出token序列到目标文件
+        //打开写入token序列的目标文件
         TokenSequenceWriter tokenSequenceWriter = new TokenSequenceWriter();
-        tokenSequenceWriter.writeTokens(tokens);
+        BufferedWriter bw = tokenSequenceWriter.openWriter();
+
+        //解析源文件中的token序列，每解析出一个token就输出到目标文件
+        try {
+            tokenizer.tokenize(reader, token -> tokenSequenceWriter.writeToken(bw, token));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        try {
+            reader.close();
+            bw.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
 
     }
 }
@@ -1,6 +1,9 @@
 package mylex;
 
+import mylex.LexAnalyzer.MappedFileReader;
+
 import java.io.*;
+import java.nio.charset.Charset;
 import java.util.Scanner;
 
 /**
@@ -9,17 +12,8 @@ import java.util.Scanner;
 public class SrcFileReader {
 
     public String getFileContent() {
-        Scanner scanner = new Scanner(System.in);
-        //读入文件内容
-        System.out.println("请输入你想解析的文件名（相对路径）:");
         StringBuilder stringBuilder = new StringBuilder();
-        //判断文件存在
-        String fileName = scanner.next();
-
-        String filePath = Thread.currentThread().getContextClassLoader().getResource("").getPath() + fileName;
-        File lFile = new File(filePath);
-
-        assert lFile.exists() : "指定需要解析的文件不存在或路径不正确";
+        File lFile = getSrcFile();
 
         BufferedReader br = null;
         try {
@@ -46,4 +40,38 @@ public class SrcFileReader {
         return stringBuilder.toString();
     }
 
+    /**
+     * 打开需要解析的文件，返回通过内存映射读取文件内容的字符流，文件内容不会被一次性读入内存
+     *
+     * @return 文件的字符流，打开失败时返回null
+     */
+    public Reader getFileReader() {
+        File lFile = getSrcFile();
+        try {
+            return new MappedFileReader(lFile.toPath(), Charset.defaultCharset());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 读入用户输入的文件名，找到需要解析的文件
+     *
+     * @return 需要解析的文件
+     */
+    private File getSrcFile() {
+        Scanner scanner = new Scanner(System.in);
+        //读入文件内容
+        System.out.println("请输入你想解析的文件名（相对路径）:");
+        //判断文件存在
+        String fileName = scanner.next();
+
+        String filePath = Thread.currentThread().getContextClassLoader().getResource("").getPath() + fileName;
+        File lFile = new File(filePath);
+
+        assert lFile.exists() : "指定需要解析的文件不存在或路径不正确";
+        return lFile;
+    }
+
 }
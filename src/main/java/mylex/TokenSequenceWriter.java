@@ -12,6 +12,25 @@ import java.util.Scanner;
 public class TokenSequenceWriter {
 
     public void writeTokens(List<Token> tokens) {
+        BufferedWriter bw = openWriter();
+
+        for (Token token : tokens) {
+            writeToken(bw, token);
+        }
+
+        try {
+            bw.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 读入用户输入的文件名，打开写入Token序列的目标文件
+     *
+     * @return 目标文件的字符流
+     */
+    public BufferedWriter openWriter() {
         Scanner scanner = new Scanner(System.in);
         //读入文件内容
         System.out.println("请输入你想写入Token序列的文件名（相对路径）:");
@@ -34,17 +53,18 @@ public class TokenSequenceWriter {
         } catch (IOException e) {
             e.printStackTrace();
         }
+        return bw;
+    }
 
-        for (Token token : tokens) {
-            try {
-                bw.write("<" + token.getName() + ", " + token.getValue() + ">\n");
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-
+    /**
+     * 向目标文件写入一个Token
+     *
+     * @param bw    目标文件的字符流
+     * @param token 需要写入的Token
+     */
+    public void writeToken(BufferedWriter bw, Token token) {
         try {
-            bw.close();
+            bw.write("<" + token.getName() + ", " + token.getValue() + ">\n");
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,68 @@
+package mylex.vo;
+
+import java.util.List;
+
+/**
+ * 保存一批源文件的切分结果，以及整体的吞吐量
+ */
+public class CorpusResult {
+
+    /**
+     * 每个文件的切分结果，顺序与传入的文件顺序相同
+     */
+    private List<FileTokens> files;
+
+    /**
+     * 切分整批文件所用的时间，单位为纳秒
+     */
+    private long elapsedNanos;
+
+    public CorpusResult(List<FileTokens> files, long elapsedNanos) {
+        this.files = files;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public List<FileTokens> getFiles() {
+        return files;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * 所有文件中被切分的字符总数
+     */
+    public long getCharCount() {
+        long charCount = 0;
+        for (FileTokens file : files) {
+            charCount += file.getCharCount();
+        }
+        return charCount;
+    }
+
+    /**
+     * 所有文件中的Token总数
+     */
+    public long getTokenCount() {
+        long tokenCount = 0;
+        for (FileTokens file : files) {
+            tokenCount += file.getTokens().size();
+        }
+        return tokenCount;
+    }
+
+    /**
+     * 每秒切分的字符数
+     */
+    public double getCharsPerSecond() {
+        return elapsedNanos == 0 ? 0 : getCharCount() * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * 每秒切分出的Token数
+     */
+    public double getTokensPerSecond() {
+        return elapsedNanos == 0 ? 0 : getTokenCount() * 1e9 / elapsedNanos;
+    }
+}
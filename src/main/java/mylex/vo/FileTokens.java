@@ -0,0 +1,43 @@
+package mylex.vo;
+
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * 保存一个源文件切分出的Token序列
+ */
+public class FileTokens {
+
+    /**
+     * 源文件
+     */
+    private Path path;
+
+    /**
+     * 按出现顺序排列的Token序列
+     */
+    private List<Token> tokens;
+
+    /**
+     * 从文件中读出的字符数，包括被跳过的词素
+     */
+    private long charCount;
+
+    public FileTokens(Path path, List<Token> tokens, long charCount) {
+        this.path = path;
+        this.tokens = tokens;
+        this.charCount = charCount;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    public long getCharCount() {
+        return charCount;
+    }
+}
@@ -20,10 +20,20 @@ public class Pattern {
      */
     public int precedence;
 
+    /**
+     * 是否跳过该模式匹配到的词素，如空白和注释，跳过的词素不会生成Token
+     */
+    public boolean skip;
+
     public Pattern(String name, String regularExpression, int precedence) {
+        this(name, regularExpression, precedence, false);
+    }
+
+    public Pattern(String name, String regularExpression, int precedence, boolean skip) {
         this.name = name;
         this.regularExpression = regularExpression;
         this.precedence = precedence;
+        this.skip = skip;
     }
 
     @Override
@@ -31,4 +41,9 @@ public class Pattern {
         Pattern pattern = (Pattern)obj;
         return this.name.equals(pattern.name);
     }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
 }
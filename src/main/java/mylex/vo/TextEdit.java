@@ -0,0 +1,53 @@
+package mylex.vo;
+
+/**
+ * 对输入的一次修改：从offset开始删除removedLength个字符，再插入insertedText
+ */
+public class TextEdit {
+
+    private int offset;
+
+    private int removedLength;
+
+    private String insertedText;
+
+    public TextEdit(int offset, int removedLength, String insertedText) {
+        assert offset >= 0 && removedLength >= 0 : ": 修改的位置和删除的长度不能为负数";
+        this.offset = offset;
+        this.removedLength = removedLength;
+        this.insertedText = insertedText;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getRemovedLength() {
+        return removedLength;
+    }
+
+    public String getInsertedText() {
+        return insertedText;
+    }
+
+    /**
+     * 修改后位于修改区域之后的字符在输入中移动的距离
+     */
+    public int getDelta() {
+        return insertedText.length() - removedLength;
+    }
+
+    /**
+     * 将修改应用到输入上
+     *
+     * @param input 修改前的输入
+     * @return 修改后的输入
+     */
+    public String applyTo(CharSequence input) {
+        return new StringBuilder(input.length() + getDelta())
+                .append(input, 0, offset)
+                .append(insertedText)
+                .append(input, offset + removedLength, input.length())
+                .toString();
+    }
+}
@@ -1,24 +1,127 @@
 package mylex.vo;
 
 /**
- * 保存Token的名字和相关属性值
+ * 保存Token的类型编号和相关属性值，名字由类型编号从TokenTypeTable中查出
+ * Token可以只记录词素在输入中的开始位置和长度，在第一次调用getValue时才从输入中截取词素
  */
 public class Token {
 
-    private String name;
+    /**
+     * 错误恢复模式下，无法被任何Pattern匹配的输入所对应的Token的名字
+     */
+    public static final String ERROR = "ERROR";
 
-    private String value;
+    /**
+     * Token所属的类型表，Token的名字由类型编号从表中查出，不在每个Token中保存
+     */
+    private TokenTypeTable typeTable;
 
-    public Token(String name, String value) {
-        this.name = name;
+    /**
+     * 词素，延迟截取时在第一次调用getValue前为null；volatile保证其他线程看到的是完整截取的词素
+     */
+    private volatile String value;
+
+    /**
+     * Token对应的Pattern的编号，即TokenTypeTable中的类型编号，无法匹配的输入为-1
+     */
+    private int patternID;
+
+    /**
+     * 词素所在的输入，构造时词素已经确定则为null；截取词素后保留，不置为null
+     */
+    private CharSequence source;
+
+    /**
+     * 词素在输入中的开始位置，以字符为单位，使用long以支持超过2G个字符的输入；未知时为-1
+     */
+    private long offset;
+
+    /**
+     * 词素的长度，单个词素不会超过2G个字符，结束位置由offset和length求出
+     */
+    private int length;
+
+    /**
+     * 词素已经确定的Token
+     *
+     * @param typeTable Token所属的类型表
+     * @param patternID Token对应的Pattern的编号，无法匹配的输入为-1
+     * @param value     词素
+     * @param offset    词素的开始位置，未知时为-1
+     */
+    public Token(TokenTypeTable typeTable, int patternID, String value, long offset) {
+        this.typeTable = typeTable;
+        this.patternID = patternID;
         this.value = value;
+        this.offset = offset;
+        this.length = value.length();
     }
 
+    /**
+     * 只记录词素位置的Token，词素在第一次调用getValue时才从source中截取
+     *
+     * @param typeTable Token所属的类型表
+     * @param patternID Token对应的Pattern的编号，无法匹配的输入为-1
+     * @param source    词素所在的输入
+     * @param offset    词素的开始位置
+     * @param end       词素的结束位置（不包含）
+     */
+    public Token(TokenTypeTable typeTable, int patternID, CharSequence source, long offset, long end) {
+        assert end - offset <= Integer.MAX_VALUE : ": 词素长度超过int的范围";
+        this.typeTable = typeTable;
+        this.patternID = patternID;
+        this.source = source;
+        this.offset = offset;
+        this.length = (int) (end - offset);
+    }
+
+    /**
+     * Token的名字，无法匹配的输入为ERROR
+     */
     public String getName() {
-        return name;
+        return patternID < 0 ? ERROR : typeTable.getName(patternID);
     }
 
+    /**
+     * 词素，延迟截取的Token在第一次调用时截取
+     * 多个线程可以同时调用：source截取后不会被置为null，同时截取的线程得到相同的词素
+     */
     public String getValue() {
-        return value;
+        String lexeme = value;
+        if (lexeme == null) {
+            lexeme = source.subSequence((int) offset, (int) offset + length).toString();
+            value = lexeme;
+        }
+        return lexeme;
+    }
+
+    /**
+     * 是否是无法匹配的输入
+     */
+    public boolean isError() {
+        return patternID < 0;
+    }
+
+    public TokenTypeTable getTypeTable() {
+        return typeTable;
+    }
+
+    public int getPatternID() {
+        return patternID;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getEnd() {
+        return offset < 0 ? -1 : offset + length;
+    }
+
+    /**
+     * 词素长度，延迟截取的Token不需要截取词素
+     */
+    public int length() {
+        return length;
     }
 }
@@ -0,0 +1,72 @@
+package mylex.vo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 增量切分的结果：原Token序列中从firstIndex开始的removedCount个Token被insertedTokens替换，
+ * 其后的Token内容不变，位置移动offsetDelta
+ */
+public class TokenDelta {
+
+    /**
+     * 第一个被替换的Token在原序列中的下标
+     */
+    private int firstIndex;
+
+    /**
+     * 被替换的Token个数
+     */
+    private int removedCount;
+
+    /**
+     * 重新扫描得到的Token，位置为修改后输入中的位置
+     */
+    private List<Token> insertedTokens;
+
+    /**
+     * 被替换的Token之后的Token移动的距离
+     */
+    private int offsetDelta;
+
+    public TokenDelta(int firstIndex, int removedCount, List<Token> insertedTokens, int offsetDelta) {
+        this.firstIndex = firstIndex;
+        this.removedCount = removedCount;
+        this.insertedTokens = insertedTokens;
+        this.offsetDelta = offsetDelta;
+    }
+
+    public int getFirstIndex() {
+        return firstIndex;
+    }
+
+    public int getRemovedCount() {
+        return removedCount;
+    }
+
+    public List<Token> getInsertedTokens() {
+        return insertedTokens;
+    }
+
+    public int getOffsetDelta() {
+        return offsetDelta;
+    }
+
+    /**
+     * 生成修改后完整的Token序列，被替换的Token之后的Token重新指向修改后的输入并移动位置
+     *
+     * @param oldTokens 修改前的Token序列
+     * @param newInput  修改后的输入
+     * @return 修改后的Token序列
+     */
+    public List<Token> applyTo(List<Token> oldTokens, CharSequence newInput) {
+        List<Token> tokens = new ArrayList<>(oldTokens.size() - removedCount + insertedTokens.size());
+        tokens.addAll(oldTokens.subList(0, firstIndex));
+        tokens.addAll(insertedTokens);
+        for (Token token : oldTokens.subList(firstIndex + removedCount, oldTokens.size())) {
+            tokens.add(new Token(token.getTypeTable(), token.getPatternID(), newInput,
+                    token.getOffset() + offsetDelta, token.getEnd() + offsetDelta));
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,99 @@
+package mylex.vo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Token类型表，Pattern在转换表中的编号即Token的类型编号，从0开始连续分配
+ * 类型编号、名字和优先级之间可以互相查找；同一个转换表切分出的Token共用表中的名字字符串，
+ * 下游可以直接比较Token.getPatternID得到的类型编号，不需要比较名字
+ */
+public class TokenTypeTable {
+
+    /**
+     * 没有该名字的类型时getId的返回值，与错误恢复模式下ERROR Token的类型编号相同
+     */
+    public static final int UNKNOWN = -1;
+
+    /**
+     * 类型编号到名字的映射
+     */
+    private String[] names;
+
+    /**
+     * 类型编号到优先级的映射
+     */
+    private int[] precedences;
+
+    /**
+     * 每个类型的词素是否被跳过
+     */
+    private boolean[] skipFlags;
+
+    /**
+     * 名字到类型编号的映射
+     */
+    private Map<String, Integer> ids;
+
+    /**
+     * @param patterns 所有的Pattern，下标即类型编号
+     */
+    public TokenTypeTable(List<Pattern> patterns) {
+        names = new String[patterns.size()];
+        precedences = new int[patterns.size()];
+        skipFlags = new boolean[patterns.size()];
+        ids = new HashMap<>();
+        for (int id = 0; id < names.length; id++) {
+            Pattern pattern = patterns.get(id);
+            names[id] = pattern.name;
+            precedences[id] = pattern.precedence;
+            skipFlags[id] = pattern.skip;
+            ids.putIfAbsent(pattern.name, id);
+        }
+    }
+
+    /**
+     * 类型的个数
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * 根据名字查找类型编号
+     *
+     * @param name Pattern的名字
+     * @return 类型编号，没有该名字的类型时返回UNKNOWN
+     */
+    public int getId(String name) {
+        Integer id = ids.get(name);
+        return id == null ? UNKNOWN : id;
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    public int getPrecedence(int id) {
+        return precedences[id];
+    }
+
+    public boolean isSkipped(int id) {
+        return skipFlags[id];
+    }
+
+    /**
+     * 类型编号到名字的映射，调用者不应修改
+     */
+    public String[] getNames() {
+        return names;
+    }
+
+    /**
+     * 每个类型的词素是否被跳过，扫描器直接使用该数组，调用者不应修改
+     */
+    public boolean[] getSkipFlags() {
+        return skipFlags;
+    }
+}
@@ -0,0 +1,87 @@
+package mylex;
+
+import mylex.vo.CorpusResult;
+import mylex.vo.Pattern;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class CorpusTokenizerTest {
+
+    Path dir;
+
+    CorpusTokenizer corpusTokenizer;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mylex");
+        Files.write(dir.resolve("a.txt"), "if abc".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("b.txt"), "iff  if x".getBytes(StandardCharsets.US_ASCII));
+        Files.write(dir.resolve("c.log"), "x".getBytes(StandardCharsets.US_ASCII));
+
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("ws", " +", 2));
+        corpusTokenizer = new CorpusTokenizer(patterns);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        corpusTokenizer.shutdown();
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    //结果的顺序与传入的文件顺序相同
+    @Test
+    public void tokenizeFiles() throws Exception {
+        List<Path> files = Arrays.asList(dir.resolve("b.txt"), dir.resolve("a.txt"));
+        CorpusResult result = corpusTokenizer.tokenize(files, StandardCharsets.US_ASCII);
+
+        Assert.assertEquals(2, result.getFiles().size());
+        Assert.assertEquals(files.get(0), result.getFiles().get(0).getPath());
+        Assert.assertEquals("iff", result.getFiles().get(0).getTokens().get(0).getValue());
+        Assert.assertEquals("if", result.getFiles().get(1).getTokens().get(0).getName());
+        Assert.assertEquals(8, result.getTokenCount());
+        Assert.assertEquals(15, result.getCharCount());
+        Assert.assertTrue(result.getCharsPerSecond() > 0);
+    }
+
+    //按glob选择文件
+    @Test
+    public void tokenizeGlob() throws Exception {
+        CorpusResult result = corpusTokenizer.tokenize(dir, "*.txt", StandardCharsets.US_ASCII);
+
+        Assert.assertEquals(2, result.getFiles().size());
+        Assert.assertEquals(dir.resolve("a.txt"), result.getFiles().get(0).getPath());
+        Assert.assertEquals(dir.resolve("b.txt"), result.getFiles().get(1).getPath());
+    }
+
+    //字符数是从文件中读出的字符数，被跳过的词素也计入
+    @Test
+    public void charCountIncludesSkipped() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("id", "[a-z]+", 0));
+        patterns.add(new Pattern("ws", " +", 1, true));
+        CorpusTokenizer skippingTokenizer = new CorpusTokenizer(patterns);
+        try {
+            CorpusResult result = skippingTokenizer.tokenize(Arrays.asList(dir.resolve("b.txt")), StandardCharsets.US_ASCII);
+            Assert.assertEquals(3, result.getTokenCount());
+            Assert.assertEquals(9, result.getCharCount());
+        } finally {
+            skippingTokenizer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ByteTokenizerTest {
+
+    //ASCII输入上的切分结果与字符级的切分结果相同
+    @Test
+    public void getTokens() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("LE", "<=", 2));
+        patterns.add(new Pattern("LT", "<", 2));
+        patterns.add(new Pattern("ws", "( |\n)+", 3));
+        TransitionTable table = new LexAnalyzer().compile(patterns);
+
+        String input = "if iff\n< <=  x";
+        List<Token> expected = new CompiledTokenizer(table).getTokens(input);
+        List<Token> tokens = new ByteTokenizer(table).getTokens(input.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getOffset(), tokens.get(i).getOffset());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+    }
+
+    //多字节字符展开为字节转换，堆内和直接缓冲区的结果相同
+    @Test
+    public void multiByte() throws Exception {
+        //字符'a'在第1列，字符'词'在第2列；状态0读'a'到状态2，读'词'到状态1，状态1读'词'回到状态1
+        int[] charClasses = new int['词' + 1];
+        charClasses['a'] = 1;
+        charClasses['词'] = 2;
+        int[] transitions = {-1, 2, 1, -1, -1, 1, -1, -1, -1};
+        int[] acceptPatterns = {-1, 0, 1};
+        List<Pattern> patterns = Arrays.asList(new Pattern("word", "词+", 0), new Pattern("a", "a", 0));
+        ByteTokenizer tokenizer = new ByteTokenizer(new TransitionTable(charClasses, 3, transitions, acceptPatterns, patterns));
+
+        byte[] bytes = "x词词a词".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        for (ByteBuffer buffer : new ByteBuffer[]{ByteBuffer.wrap(bytes), direct}) {
+            buffer.position(1);
+            List<Token> tokens = tokenizer.getTokens(buffer);
+            Assert.assertEquals(3, tokens.size());
+            Assert.assertEquals("词词", tokens.get(0).getValue());
+            Assert.assertEquals(6, tokens.get(0).getEnd());
+            Assert.assertEquals("a", tokens.get(1).getName());
+            Assert.assertEquals(7, tokens.get(2).getOffset());
+            Assert.assertEquals("词", tokens.get(2).getValue());
+            Assert.assertEquals(1, buffer.position());
+        }
+
+        //错误恢复模式下无法匹配的字节成为ERROR Token，位置为字节位置
+        ScanErrors errors = new ScanErrors();
+        List<Token> tokens = new ByteTokenizer(tokenizer.getTable(), errors).getTokens("x词a中文".getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(4, tokens.size());
+        Assert.assertEquals("x", tokens.get(0).getValue());
+        Assert.assertTrue(tokens.get(0).isError());
+        Assert.assertEquals("词", tokens.get(1).getValue());
+        Assert.assertEquals("中文", tokens.get(3).getValue());
+        Assert.assertEquals(Token.ERROR, tokens.get(3).getName());
+        Assert.assertEquals(2, errors.getErrorCount());
+        Assert.assertEquals(7, errors.getErrorCharCount());
+        Assert.assertEquals(Arrays.asList(0L, 5L), errors.getErrorOffsets());
+    }
+
+    //补充字符在字符级转换表中是一对代理字符，展开后按其4字节UTF-8编码切分
+    @Test
+    public void surrogatePair() throws Exception {
+        //'\uD83D'在第1列，'\uDE00'在第2列，'\uDE01'在第3列，'a'在第4列
+        //状态0读高代理到状态1，状态1读'\uDE00'到接受状态2，读'\uDE01'到接受状态3，状态2读'a'到接受状态3
+        int[] charClasses = new int['\uDE01' + 1];
+        charClasses['\uD83D'] = 1;
+        charClasses['\uDE00'] = 2;
+        charClasses['\uDE01'] = 3;
+        charClasses['a'] = 4;
+        int[] transitions = {
+                -1, 1, -1, -1, -1,
+                -1, -1, 2, 3, -1,
+                -1, -1, -1, -1, 3,
+                -1, -1, -1, -1, -1};
+        int[] acceptPatterns = {-1, -1, 0, 1};
+        List<Pattern> patterns = Arrays.asList(new Pattern("smile", "\uD83D\uDE00", 0),
+                new Pattern("other", "\uD83D\uDE01|\uD83D\uDE00a", 0));
+        TransitionTable table = new TransitionTable(charClasses, 5, transitions, acceptPatterns, patterns);
+
+        String input = "\uD83D\uDE00\uD83D\uDE01\uD83D\uDE00a\uD83D\uDE00";
+        List<Token> expected = new CompiledTokenizer(table).getTokens(input);
+        List<Token> tokens = new ByteTokenizer(table).getTokens(input.getBytes(StandardCharsets.UTF_8));
+        Assert.assertEquals(4, expected.size());
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+        Assert.assertEquals(4, tokens.get(1).getOffset());
+        Assert.assertEquals(13, tokens.get(2).getEnd());
+    }
+
+    //超过2G的文件无法一次映射，给出明确的错误而不是IllegalArgumentException
+    @Test
+    public void fileTooLarge() throws Exception {
+        Path file = Files.createTempFile("mylex", ".txt");
+        try {
+            //稀疏文件，不实际占用磁盘空间
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(Integer.MAX_VALUE + 1L);
+            }
+            List<Pattern> patterns = new ArrayList<>();
+            patterns.add(new Pattern("id", "[a-z]+", 0));
+            new ByteTokenizer(new LexAnalyzer().compile(patterns)).getTokens(file);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains(String.valueOf(Integer.MAX_VALUE + 1L)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
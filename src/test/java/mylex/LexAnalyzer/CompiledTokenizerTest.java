@@ -0,0 +1,533 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.DFA;
+import mylex.LexAnalyzer.dfa.DFAOptimizer;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.LexAnalyzer.dfa.TransitionTableIO;
+import mylex.LexAnalyzer.nfa.NFA;
+import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
+import mylex.vo.Pattern;
+import mylex.vo.TextEdit;
+import mylex.vo.Token;
+import mylex.vo.TokenDelta;
+import mylex.vo.TokenTypeTable;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class CompiledTokenizerTest {
+
+    List<Pattern> patterns;
+    DFA optimizedDFA;
+    CompiledTokenizer compiledTokenizer;
+
+    @Before
+    public void setUp() {
+        patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("else", "else", 0));
+        patterns.add(new Pattern("id", "[efilsx]+", 1));
+        patterns.add(new Pattern("LE", "<=", 2));
+        patterns.add(new Pattern("LT", "<", 2));
+        patterns.add(new Pattern("ws", "( |\n)+", 3));
+
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        optimizedDFA = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+        compiledTokenizer = new CompiledTokenizer(new TransitionTable(optimizedDFA, patterns));
+    }
+
+    //转换表的扫描结果应与在DFA状态图上扫描的结果相同
+    @Test
+    public void getTokens() throws Exception {
+        String input = "if x<=else\nelsex < iff";
+        List<Token> expected = new Tokenizer(optimizedDFA, patterns).getTokens(input);
+        List<Token> tokens = compiledTokenizer.getTokens(input);
+
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getPatternID(), tokens.get(i).getPatternID());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+        Assert.assertEquals("LE", tokens.get(3).getName());
+        Assert.assertEquals("elsex", tokens.get(6).getValue());
+    }
+
+    @Test
+    public void table() throws Exception {
+        TransitionTable table = compiledTokenizer.getTable();
+        int state = table.move(0, 'i');
+        Assert.assertNotEquals(TransitionTable.DEAD_STATE, state);
+        state = table.move(state, 'f');
+        Assert.assertEquals(0, table.getAcceptPatterns()[state]);
+        Assert.assertEquals(TransitionTable.DEAD_STATE, table.move(0, '@'));
+        Assert.assertEquals(TransitionTable.DEAD_STATE, table.move(0, '中'));
+    }
+
+    //缓冲区远小于词素长度时，跨越缓冲区边界的词素也应被正确切分
+    @Test
+    public void tokenizeReader() throws Exception {
+        String input = "elsexelsex   if iff\n<=<<= xxxxxxxxxxxxxxxx";
+        List<Token> expected = compiledTokenizer.getTokens(input);
+
+        List<Token> tokens = new ArrayList<>();
+        compiledTokenizer.tokenize(new StringReader(input), 3, tokens::add);
+        assertSameTokens(expected, tokens);
+
+        tokens.clear();
+        compiledTokenizer.tokenize(Channels.newChannel(new ByteArrayInputStream(input.getBytes(StandardCharsets.UTF_8))),
+                StandardCharsets.UTF_8, tokens::add);
+        assertSameTokens(expected, tokens);
+    }
+
+    //Token的类型编号与类型表一致，所有Token共用类型表中的名字
+    @Test
+    public void typeTable() throws Exception {
+        TokenTypeTable typeTable = compiledTokenizer.getTypeTable();
+        Assert.assertEquals(patterns.size(), typeTable.size());
+        Assert.assertEquals(2, typeTable.getId("id"));
+        Assert.assertEquals("LT", typeTable.getName(4));
+        Assert.assertEquals(3, typeTable.getPrecedence(typeTable.getId("ws")));
+        Assert.assertEquals(TokenTypeTable.UNKNOWN, typeTable.getId("number"));
+
+        List<Token> tokens = compiledTokenizer.getTokens("if x<=else");
+        for (Token token : tokens) {
+            Assert.assertEquals(typeTable.getId(token.getName()), token.getPatternID());
+            Assert.assertSame(typeTable.getName(token.getPatternID()), token.getName());
+        }
+
+        List<Token> streamed = new ArrayList<>();
+        compiledTokenizer.tokenize(new StringReader("if x<=else"), 2, streamed::add);
+        for (Token token : streamed) {
+            Assert.assertSame(typeTable.getName(token.getPatternID()), token.getName());
+        }
+    }
+
+    //Token只记录Pattern编号和词素位置，调用getValue时才截取词素
+    @Test
+    public void lazyTokens() throws Exception {
+        StringBuilder input = new StringBuilder("else  x<=if");
+        List<Token> tokens = compiledTokenizer.getTokens(input);
+
+        Assert.assertEquals(5, tokens.size());
+        Token le = tokens.get(3);
+        Assert.assertEquals(patterns.indexOf(new Pattern("LE", "", 0)), le.getPatternID());
+        Assert.assertEquals(7, le.getOffset());
+        Assert.assertEquals(9, le.getEnd());
+        Assert.assertEquals(2, le.length());
+        Assert.assertEquals("<=", le.getValue());
+        Assert.assertEquals("  ", tokens.get(1).getValue());
+    }
+
+    //多个线程同时截取同一批延迟截取的Token，都应得到正确的词素
+    @Test
+    public void concurrentLazyValues() throws Exception {
+        StringBuilder input = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            input.append("else x<=if ");
+        }
+        String expected = input.toString();
+        for (int round = 0; round < 20; round++) {
+            List<Token> tokens = compiledTokenizer.getTokens(input);
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (Token token : tokens) {
+                        Assert.assertEquals(expected.substring((int) token.getOffset(), (int) token.getEnd()), token.getValue());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+        }
+    }
+
+    //TokenStream只扫描到需要的Token为止，后面无法解析的输入不会被扫描
+    @Test
+    public void tokenStream() throws Exception {
+        TokenStream stream = compiledTokenizer.tokenStream("if x@@@");
+        Assert.assertTrue(stream.hasNext());
+        Assert.assertEquals("if", stream.next().getValue());
+        Assert.assertEquals("ws", stream.next().getName());
+        Assert.assertEquals("x", stream.next().getValue());
+
+        String input = "else x <= iff";
+        List<Token> expected = compiledTokenizer.getTokens(input);
+        List<Token> tokens = new ArrayList<>();
+        compiledTokenizer.tokenStream(new StringReader(input), 2).forEachRemaining(tokens::add);
+        assertSameTokens(expected, tokens);
+
+        Assert.assertEquals(4, compiledTokenizer.tokenStream(input).stream().filter(token -> !token.getName().equals("ws")).count());
+        Assert.assertFalse(compiledTokenizer.tokenStream("").hasNext());
+    }
+
+    //ScanListener能看到每一次转换、接受和回退，安装后切分结果不变
+    @Test
+    public void scanListener() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("a", "a", 0));
+        patterns.add(new Pattern("abc", "abc", 0));
+        patterns.add(new Pattern("b", "b", 1));
+        TransitionTable table = ((CompiledTokenizer) new LexAnalyzer().createTokenizer(patterns)).getTable();
+
+        List<String> events = new ArrayList<>();
+        ScanListener listener = new ScanListener() {
+            @Override
+            public void accept(int state, int patternID, long end) {
+                events.add("accept " + patternID + " " + end);
+            }
+
+            @Override
+            public void backtrack(long forward, long lexemeEnd) {
+                events.add("backtrack " + forward + " " + lexemeEnd);
+            }
+        };
+        CompiledTokenizer tracedTokenizer = new CompiledTokenizer(table, listener);
+
+        List<Token> tokens = tracedTokenizer.getTokens("abb");
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertEquals("a", tokens.get(0).getValue());
+        Assert.assertEquals("[accept 0 1, backtrack 2 1, accept 2 2, accept 2 3]", events.toString());
+
+        events.clear();
+        tokens.clear();
+        tracedTokenizer.tokenize(new StringReader("abb"), 1, tokens::add);
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertEquals("[accept 0 1, backtrack 2 1, accept 2 2, accept 2 3]", events.toString());
+    }
+
+    //内存中的输入和流式读取的输入都会被统计
+    @Test
+    public void metrics() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("a", "a", 0));
+        patterns.add(new Pattern("abc", "abc", 0));
+        patterns.add(new Pattern("b", "b", 1));
+        TransitionTable table = ((CompiledTokenizer) new LexAnalyzer().createTokenizer(patterns)).getTable();
+        TokenizerMetrics metrics = new TokenizerMetrics(patterns);
+        CompiledTokenizer measuredTokenizer = new CompiledTokenizer(table, null, metrics);
+
+        measuredTokenizer.getTokens("abbabc");
+        Assert.assertEquals(6, metrics.getCharCount());
+        Assert.assertEquals(4, metrics.getTokenCount());
+        Assert.assertEquals(1, metrics.getBacktrackCount());
+        Assert.assertEquals(1, metrics.getBacktrackedCharCount());
+        Assert.assertEquals(2, metrics.getPatternCount(2));
+        Assert.assertEquals(3, metrics.getLexemeLengthHistogram()[0]);
+        Assert.assertEquals(1, metrics.getLexemeLengthHistogram()[1]);
+
+        measuredTokenizer.tokenize(new StringReader("abbabc"), 2, token -> {
+        });
+        Assert.assertEquals(8, metrics.getTokenCount());
+        Assert.assertEquals(2, metrics.getBacktrackCount());
+        Assert.assertEquals(Long.valueOf(2), metrics.getPatternCounts().get("abc"));
+
+        ObjectName name = new ObjectName("mylex:type=TokenizerMetrics,name=test");
+        metrics.register(name.toString());
+        Assert.assertEquals(12L, ManagementFactory.getPlatformMBeanServer().getAttribute(name, "CharCount"));
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+
+        metrics.reset();
+        Assert.assertEquals(0, metrics.getTokenCount());
+    }
+
+    //错误恢复模式下连续无法匹配的字符成为一个ERROR Token，之后继续切分
+    @Test
+    public void errorRecovery() throws Exception {
+        String input = "if @@x<=9 else#";
+        String[] names = {"if", "ws", Token.ERROR, "id", "LE", Token.ERROR, "ws", "else", Token.ERROR};
+        String[] values = {"if", " ", "@@", "x", "<=", "9", " ", "else", "#"};
+
+        ScanErrors errors = new ScanErrors();
+        CompiledTokenizer tokenizer = new CompiledTokenizer(compiledTokenizer.getTable(), null, null, errors);
+        List<Token> tokens = tokenizer.getTokens(input);
+        Assert.assertEquals(names.length, tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(names[i], tokens.get(i).getName());
+            Assert.assertEquals(values[i], tokens.get(i).getValue());
+        }
+        Assert.assertTrue(tokens.get(2).isError());
+        Assert.assertFalse(tokens.get(3).isError());
+        Assert.assertEquals(3, tokens.get(2).getOffset());
+        Assert.assertEquals(3, errors.getErrorCount());
+        Assert.assertEquals(4, errors.getErrorCharCount());
+        Assert.assertEquals(Arrays.asList(3L, 8L, 14L), errors.getErrorOffsets());
+
+        //从Reader读入时，错误跨越缓冲区边界也应得到相同的结果
+        for (int bufferSize = 1; bufferSize <= 3; bufferSize++) {
+            List<Token> streamed = new ArrayList<>();
+            tokenizer.tokenize(new StringReader(input), bufferSize, streamed::add);
+            assertSameTokens(tokens, streamed);
+        }
+        assertSameTokens(tokens, GeneratedTokenizer.create(compiledTokenizer.getTable(), new ScanErrors()).getTokens(input));
+
+        //结尾的错误和全部无法匹配的输入
+        Assert.assertEquals("@@", tokenizer.getTokens("x@@").get(1).getValue());
+        Assert.assertEquals(Token.ERROR, tokenizer.getTokens("@@@").get(0).getName());
+        Assert.assertEquals(1, tokenizer.getTokens("@@@").size());
+    }
+
+    //增量切分的结果应与修改后重新切分全部输入的结果相同
+    @Test
+    public void retokenize() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("number", "[0-9]+", 1));
+        patterns.add(new Pattern("arrow", "<-<", 2));
+        patterns.add(new Pattern("LT", "<", 2));
+        patterns.add(new Pattern("minus", "-", 2));
+        patterns.add(new Pattern("ws", " +", 3));
+        CompiledTokenizer tokenizer = (CompiledTokenizer) new LexAnalyzer().createTokenizer(patterns);
+
+        String alphabet = "ifx1 <-";
+        Random random = new Random(5);
+        String input = randomString(random, alphabet, 300);
+        List<Token> tokens = tokenizer.getTokens(input);
+        for (int i = 0; i < 200; i++) {
+            int offset = random.nextInt(input.length() + 1);
+            int removedLength = random.nextInt(Math.min(4, input.length() - offset) + 1);
+            TextEdit edit = new TextEdit(offset, removedLength, randomString(random, alphabet, random.nextInt(4)));
+            String newInput = edit.applyTo(input);
+
+            TokenDelta delta = tokenizer.retokenize(tokens, newInput, edit);
+            List<Token> newTokens = delta.applyTo(tokens, newInput);
+            List<Token> expected = tokenizer.getTokens(newInput);
+            assertSameTokens(expected, newTokens);
+            for (int j = 0; j < expected.size(); j++) {
+                Assert.assertEquals(expected.get(j).getOffset(), newTokens.get(j).getOffset());
+            }
+            //只重新扫描修改附近的Token
+            Assert.assertTrue(delta.getInsertedTokens().size() < 12);
+
+            input = newInput;
+            tokens = newTokens;
+        }
+    }
+
+    //错误恢复模式下，增量切分和并行切分也生成ERROR Token，结果与顺序扫描相同
+    @Test
+    public void errorRecoveryRetokenize() throws Exception {
+        ScanErrors errors = new ScanErrors();
+        CompiledTokenizer tokenizer = new CompiledTokenizer(compiledTokenizer.getTable(), null, null, errors);
+        List<Token> tokens = tokenizer.getTokens("x@s");
+        TextEdit edit = new TextEdit(1, 1, "@@");
+        String newInput = edit.applyTo("x@s");
+        List<Token> newTokens = tokenizer.retokenize(tokens, newInput, edit).applyTo(tokens, newInput);
+        assertSameTokens(tokenizer.getTokens(newInput), newTokens);
+        Assert.assertEquals(3, newTokens.size());
+        Assert.assertEquals("@@", newTokens.get(1).getValue());
+        Assert.assertTrue(newTokens.get(1).isError());
+
+        //随机修改中夹杂无法匹配的字符
+        Random random = new Random(11);
+        String alphabet = "efilsx< \n@#";
+        String input = randomString(random, alphabet, 200);
+        tokens = tokenizer.getTokens(input);
+        for (int i = 0; i < 200; i++) {
+            int offset = random.nextInt(input.length() + 1);
+            edit = new TextEdit(offset, random.nextInt(Math.min(3, input.length() - offset) + 1),
+                    randomString(random, alphabet, random.nextInt(3)));
+            newInput = edit.applyTo(input);
+            newTokens = tokenizer.retokenize(tokens, newInput, edit).applyTo(tokens, newInput);
+            List<Token> expected = tokenizer.getTokens(newInput);
+            assertSameTokens(expected, newTokens);
+            for (int j = 0; j < expected.size(); j++) {
+                Assert.assertEquals(expected.get(j).getOffset(), newTokens.get(j).getOffset());
+            }
+            input = newInput;
+            tokens = newTokens;
+        }
+
+        ScanErrors parallelErrors = new ScanErrors();
+        ScanErrors sequentialErrors = new ScanErrors();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int chunkSize : new int[]{1, 5, 16}) {
+                List<Token> parallel = new ParallelTokenizer(compiledTokenizer.getTable(), pool, chunkSize, parallelErrors)
+                        .getTokens(input);
+                assertSameTokens(new CompiledTokenizer(compiledTokenizer.getTable(), null, null, sequentialErrors)
+                        .getTokens(input), parallel);
+            }
+        } finally {
+            pool.shutdown();
+        }
+        Assert.assertEquals(sequentialErrors.getErrorCount(), parallelErrors.getErrorCount());
+        Assert.assertEquals(sequentialErrors.getErrorOffsets(), parallelErrors.getErrorOffsets());
+    }
+
+    //增量切分后errors与完整扫描修改后输入的结果相同，不随修改次数累积
+    @Test
+    public void retokenizeErrors() throws Exception {
+        ScanErrors errors = new ScanErrors();
+        CompiledTokenizer tokenizer = new CompiledTokenizer(compiledTokenizer.getTable(), null, null, errors);
+        Random random = new Random(19);
+        String alphabet = "efilsx< \n@#";
+        String input = randomString(random, alphabet, 200);
+        List<Token> tokens = tokenizer.getTokens(input);
+        for (int i = 0; i < 200; i++) {
+            int offset = random.nextInt(input.length() + 1);
+            TextEdit edit = new TextEdit(offset, random.nextInt(Math.min(3, input.length() - offset) + 1),
+                    randomString(random, alphabet, random.nextInt(3)));
+            input = edit.applyTo(input);
+            tokens = tokenizer.retokenize(tokens, input, edit).applyTo(tokens, input);
+
+            ScanErrors expected = new ScanErrors();
+            new CompiledTokenizer(compiledTokenizer.getTable(), null, null, expected).getTokens(input);
+            Assert.assertEquals(expected.getErrorCount(), errors.getErrorCount());
+            Assert.assertEquals(expected.getErrorCharCount(), errors.getErrorCharCount());
+            List<Long> offsets = errors.getErrorOffsets();
+            Collections.sort(offsets);
+            Assert.assertEquals(expected.getErrorOffsets(), offsets);
+        }
+        Assert.assertTrue(errors.getErrorCount() > 0);
+    }
+
+    //更早的Token扫描时越过了其后的Token读入修改区域，也需要重新扫描
+    @Test
+    public void retokenizeLongLookahead() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("abcd", "abcd", 0));
+        patterns.add(new Pattern("a", "a", 1));
+        patterns.add(new Pattern("b", "b", 1));
+        patterns.add(new Pattern("c", "c", 1));
+        patterns.add(new Pattern("d", "d", 1));
+        patterns.add(new Pattern("x", "x", 1));
+        CompiledTokenizer tokenizer = (CompiledTokenizer) new LexAnalyzer().createTokenizer(patterns);
+
+        List<Token> tokens = tokenizer.getTokens("abcx");
+        Assert.assertEquals(4, tokens.size());
+        TextEdit edit = new TextEdit(3, 1, "d");
+        String newInput = edit.applyTo("abcx");
+        List<Token> newTokens = tokenizer.retokenize(tokens, newInput, edit).applyTo(tokens, newInput);
+        assertSameTokens(tokenizer.getTokens(newInput), newTokens);
+        Assert.assertEquals(1, newTokens.size());
+        Assert.assertEquals("abcd", newTokens.get(0).getName());
+    }
+
+    //被跳过的词素不生成Token，各种扫描方式的结果相同
+    @Test
+    public void skip() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("LT", "<", 2));
+        patterns.add(new Pattern("comment", "#[a-z ]*", 2, true));
+        patterns.add(new Pattern("ws", "( |\n)+", 3, true));
+        TransitionTable table = new LexAnalyzer().compile(patterns);
+        CompiledTokenizer tokenizer = new CompiledTokenizer(table);
+
+        String input = "  if x #skip me\n< y\n#z\niff  ";
+        List<Token> tokens = tokenizer.getTokens(input);
+        String[] values = {"if", "x", "<", "y", "iff"};
+        Assert.assertEquals(values.length, tokens.size());
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(values[i], tokens.get(i).getValue());
+        }
+        Assert.assertEquals(23, tokens.get(4).getOffset());
+
+        for (int bufferSize = 1; bufferSize <= 3; bufferSize++) {
+            List<Token> streamed = new ArrayList<>();
+            tokenizer.tokenize(new StringReader(input), bufferSize, streamed::add);
+            assertSameTokens(tokens, streamed);
+        }
+        assertSameTokens(tokens, GeneratedTokenizer.create(table).getTokens(input));
+        assertSameTokens(tokens, new ParallelTokenizer(table, ForkJoinPool.commonPool(), 4).getTokens(input));
+        assertSameTokens(tokens, new ByteTokenizer(table).getTokens(input.getBytes(StandardCharsets.UTF_8)));
+
+        //跳过标志随转换表一起保存
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransitionTableIO.write(table, out);
+        TransitionTable loaded = TransitionTableIO.read(ByteBuffer.wrap(out.toByteArray()));
+        assertSameTokens(tokens, new CompiledTokenizer(loaded).getTokens(input));
+
+        //在被跳过的词素中修改后增量切分
+        String[] edits = {"x", " ", "#", "\n", "<"};
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            int offset = random.nextInt(input.length() + 1);
+            TextEdit edit = new TextEdit(offset, random.nextInt(Math.min(2, input.length() - offset) + 1),
+                    edits[random.nextInt(edits.length)]);
+            String newInput = edit.applyTo(input);
+
+            List<Token> newTokens = tokenizer.retokenize(tokens, newInput, edit).applyTo(tokens, newInput);
+            List<Token> expected = tokenizer.getTokens(newInput);
+            assertSameTokens(expected, newTokens);
+            for (int j = 0; j < expected.size(); j++) {
+                Assert.assertEquals(expected.get(j).getOffset(), newTokens.get(j).getOffset());
+            }
+            input = newInput;
+            tokens = newTokens;
+        }
+    }
+
+    //并行编译各个Pattern后合并的转换表与顺序构造合并NFA得到的转换表切分结果相同，多次编译得到相同的转换表
+    @Test
+    public void parallelCompile() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            TransitionTable table = new LexAnalyzer(pool).compile(patterns);
+            Assert.assertEquals(compiledTokenizer.getTable().getStateCount(), table.getStateCount());
+
+            ByteArrayOutputStream first = new ByteArrayOutputStream();
+            TransitionTableIO.write(table, first);
+            for (int i = 0; i < 5; i++) {
+                ByteArrayOutputStream again = new ByteArrayOutputStream();
+                TransitionTableIO.write(new LexAnalyzer(pool).compile(patterns), again);
+                Assert.assertArrayEquals(first.toByteArray(), again.toByteArray());
+            }
+
+            CompiledTokenizer tokenizer = new CompiledTokenizer(table);
+            assertSameTokens(compiledTokenizer.getTokens("if x<=else\nelsex < iff"), tokenizer.getTokens("if x<=else\nelsex < iff"));
+            Random random = new Random(7);
+            for (int i = 0; i < 50; i++) {
+                String input = randomString(random, "efilsx< \n", 40);
+                assertSameTokens(compiledTokenizer.getTokens(input), tokenizer.getTokens(input));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private String randomString(Random random, String alphabet, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private void assertSameTokens(List<Token> expected, List<Token> tokens) {
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+    }
+}
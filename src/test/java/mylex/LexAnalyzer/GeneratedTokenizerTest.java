@@ -0,0 +1,146 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+public class GeneratedTokenizerTest {
+
+    TransitionTable table;
+
+    @Before
+    public void setUp() {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("number", "[0-9]+", 2));
+        patterns.add(new Pattern("comment", "#[a-z0-9 ]*;", 3));
+        patterns.add(new Pattern("LE", "<=", 4));
+        patterns.add(new Pattern("LT", "<", 4));
+        patterns.add(new Pattern("arrow", "<-<", 4));
+        patterns.add(new Pattern("minus", "-", 4));
+        patterns.add(new Pattern("ws", "( |\n)+", 5));
+        table = new LexAnalyzer().compile(patterns);
+    }
+
+    //生成的扫描代码切分的结果应与转换表扫描的结果相同
+    @Test
+    public void getTokens() throws Exception {
+        Tokenizer tokenizer = GeneratedTokenizer.create(table);
+        Assert.assertTrue(tokenizer instanceof GeneratedTokenizer);
+
+        String[] pieces = {"if", "iff", "x", "12", " ", "\n", "<", "<=", "#if x 12;", "<-<"};
+        Random random = new Random(13);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 5000) {
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        //<-后面不是<时需要回退
+        sb.append("<-");
+        String input = sb.toString();
+
+        List<Token> expected = new CompiledTokenizer(table).getTokens(input);
+        List<Token> tokens = tokenizer.getTokens(input);
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getOffset(), tokens.get(i).getOffset());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+    }
+
+    //接近Java的文法：旧的单方法生成方式会超过64KB，按状态分组后仍应生成扫描代码
+    @Test
+    public void realisticGrammar() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        String[] keywords = {"abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+                "continue", "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for",
+                "goto", "if", "implements", "import", "instanceof", "int", "interface", "long", "native", "new",
+                "package", "private", "protected", "public", "return", "short", "static", "strictfp", "super",
+                "switch", "synchronized", "this", "throw", "throws", "transient", "try", "void", "volatile", "while",
+                "true", "false", "null", "var", "yield", "record", "sealed", "permits", "module", "requires",
+                "exports", "opens", "uses", "provides", "transitive", "with", "String", "Object", "Integer", "Long",
+                "Character", "Boolean", "Override", "Deprecated", "Exception", "RuntimeException", "Runnable"};
+        for (String keyword : keywords) {
+            patterns.add(new Pattern(keyword, keyword, 0));
+        }
+        patterns.add(new Pattern("id", "[a-zA-Z_$][a-zA-Z0-9_$]*", 1));
+        patterns.add(new Pattern("hex", "0x[0-9a-fA-F]+", 2));
+        patterns.add(new Pattern("number", "[0-9]+", 2));
+        patterns.add(new Pattern("string", "`[a-zA-Z0-9 ]*`", 2));
+        patterns.add(new Pattern("comment", "#[a-zA-Z0-9 ]*;", 2));
+        String[] operators = {"==", "!=", "<=", ">=", "&&", "--", "-=", "%=", "&=", "^=", "<<", ">>", ">>>",
+                "=", "<", ">", "!", "~", "@", ":", ";", "&", "^", "%", "-"};
+        for (int i = 0; i < operators.length; i++) {
+            patterns.add(new Pattern("op" + i, operators[i], 3));
+        }
+        patterns.add(new Pattern("ws", "( |\n)+", 4));
+        TransitionTable table = new LexAnalyzer().compile(patterns);
+        //每个状态一个按列分派的tableswitch，每列4字节
+        Assert.assertTrue(table.getStateCount() * (table.getClassCount() - 1) * 4 > 65535);
+
+        TokenizerMetrics metrics = new TokenizerMetrics(patterns);
+        CompiledTokenizer tokenizer = GeneratedTokenizer.create(table, null, metrics, null);
+        Assert.assertTrue(tokenizer instanceof GeneratedTokenizer);
+
+        List<String> pieces = new ArrayList<>(Arrays.asList(keywords));
+        pieces.addAll(Arrays.asList(operators));
+        pieces.addAll(Arrays.asList("x", "classes", "_tmp$1", "0x1F", "0x", "42", "`str 1`", "# note;", " ", "\n"));
+        Random random = new Random(17);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 20000) {
+            sb.append(pieces.get(random.nextInt(pieces.size())));
+        }
+        String input = sb.toString();
+
+        TokenizerMetrics expectedMetrics = new TokenizerMetrics(patterns);
+        List<Token> expected = new CompiledTokenizer(table, null, expectedMetrics).getTokens(input);
+        List<Token> tokens = tokenizer.getTokens(input);
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getOffset(), tokens.get(i).getOffset());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+
+        //生成的扫描代码同样统计运行时指标
+        Assert.assertEquals(expectedMetrics.getTokenCount(), metrics.getTokenCount());
+        Assert.assertEquals(expectedMetrics.getCharCount(), metrics.getCharCount());
+        Assert.assertEquals(expectedMetrics.getBacktrackCount(), metrics.getBacktrackCount());
+        Assert.assertEquals(expectedMetrics.getBacktrackedCharCount(), metrics.getBacktrackedCharCount());
+        Assert.assertTrue(metrics.getBacktrackCount() > 0);
+    }
+
+    //有ScanListener时改用转换表扫描，每一次转换都通知listener
+    @Test
+    public void listener() throws Exception {
+        final int[] counts = new int[2];
+        ScanListener listener = new ScanListener() {
+            @Override
+            public void transition(int state, char c, int nextState, long position) {
+                counts[0]++;
+            }
+        };
+        ScanListener expectedListener = new ScanListener() {
+            @Override
+            public void transition(int state, char c, int nextState, long position) {
+                counts[1]++;
+            }
+        };
+        String input = "if x <= 12 <-< #if;";
+        CompiledTokenizer tokenizer = GeneratedTokenizer.create(table, listener, null, null);
+        Assert.assertTrue(tokenizer instanceof GeneratedTokenizer);
+        Assert.assertEquals(new CompiledTokenizer(table).getTokens(input).size(), tokenizer.getTokens(input).size());
+        new CompiledTokenizer(table, expectedListener).getTokens(input);
+        Assert.assertTrue(counts[0] > 0);
+        Assert.assertEquals(counts[1], counts[0]);
+    }
+}
@@ -0,0 +1,85 @@
+package mylex.LexAnalyzer;
+
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MappedFileReaderTest {
+
+    Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("mylex", ".txt");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    //多字节字符跨越映射窗口边界时也应被正确解码
+    @Test
+    public void readUTF8() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            sb.append("词法ab😀c");
+        }
+        String content = sb.toString();
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertEquals(content, readAll(StandardCharsets.UTF_8, 1));
+        Assert.assertEquals(content, readAll(StandardCharsets.UTF_8, 7));
+    }
+
+    @Test
+    public void readSingleByte() throws Exception {
+        byte[] bytes = new byte[]{'i', 'f', ' ', (byte) 0xE9, 'x'};
+        Files.write(file, bytes);
+
+        Assert.assertEquals("if éx", readAll(StandardCharsets.ISO_8859_1, 2));
+        Assert.assertEquals("if �x", readAll(StandardCharsets.US_ASCII, 2));
+    }
+
+    @Test
+    public void tokenizeFile() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("ws", " +", 2));
+        Tokenizer tokenizer = new LexAnalyzer().createTokenizer(patterns);
+
+        Files.write(file, "if abc  iff".getBytes(StandardCharsets.US_ASCII));
+        List<Token> tokens = new ArrayList<>();
+        tokenizer.tokenize(file, StandardCharsets.US_ASCII, tokens::add);
+
+        Assert.assertEquals(5, tokens.size());
+        Assert.assertEquals(0, tokens.get(0).getOffset());
+        Assert.assertEquals(3, tokens.get(2).getOffset());
+        Assert.assertEquals("iff", tokens.get(4).getValue());
+        Assert.assertEquals(8, tokens.get(4).getOffset());
+    }
+
+    private String readAll(Charset charset, int chunkSize) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[chunkSize];
+        try (Reader reader = new MappedFileReader(file, charset, MappedFileReader.MIN_WINDOW_SIZE)) {
+            int read;
+            while ((read = reader.read(buffer, 0, chunkSize)) != -1) {
+                sb.append(buffer, 0, read);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.DFA;
+import mylex.LexAnalyzer.dfa.DFAOptimizer;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.LexAnalyzer.nfa.NFA;
+import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+public class ParallelTokenizerTest {
+
+    TransitionTable table;
+
+    @Before
+    public void setUp() {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("number", "[0-9]+", 2));
+        patterns.add(new Pattern("comment", "#[a-z0-9 ]*;", 3));
+        patterns.add(new Pattern("LE", "<=", 4));
+        patterns.add(new Pattern("LT", "<", 4));
+        patterns.add(new Pattern("ws", " +", 5));
+
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA dfa = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+        table = new TransitionTable(dfa, patterns);
+    }
+
+    //任意分块大小下，并行切分的结果都应与顺序切分的结果相同
+    @Test
+    public void getTokens() throws Exception {
+        String[] pieces = {"if", "iff", "x", "12", " ", "  ", "<", "<=", "#if x 12;", "#   ;"};
+        Random random = new Random(17);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 5000) {
+            sb.append(pieces[random.nextInt(pieces.length)]);
+        }
+        String input = sb.toString();
+
+        List<Token> expected = new CompiledTokenizer(table).getTokens(input);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int chunkSize : new int[]{1, 3, 7, 64, 1000}) {
+            List<Token> tokens = new ParallelTokenizer(table, pool, chunkSize).getTokens(input);
+            Assert.assertEquals(expected.size(), tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+                Assert.assertEquals(expected.get(i).getOffset(), tokens.get(i).getOffset());
+                Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+            }
+        }
+        pool.shutdown();
+    }
+}
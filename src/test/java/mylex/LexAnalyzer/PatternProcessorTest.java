@@ -1,14 +1,19 @@
 package mylex.LexAnalyzer;
 
+import mylex.LexAnalyzer.nfa.CompactNFA;
 import mylex.LexAnalyzer.nfa.NFA;
 import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
 import mylex.vo.Pattern;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
 
 public class PatternProcessorTest {
 
@@ -53,4 +58,88 @@ public class PatternProcessorTest {
             nfaList.get(i).printNFA();
         }
     }
+
+    //在数组上构建的紧凑NFA接受的串与java.util.regex相同，包括克隆片段的{n}、{n,}和{n,m}
+    @Test
+    public void compactNFA() throws Exception {
+        String[] regExps = {"(a|b)*abb", "((a|b)*)?", "(a|b|c)+", "[abc]+", "[a-c0-2]x", "a{3}", "a{2,}", "a{1,}",
+                "c{2,5}", "(ab){2,3}", "(a|bc)*c{2,4}", "(a+b?){2}c", "((ab)*c){1,2}", "[ab]{2}(c|a){0,2}b"};
+        Random random = new Random(23);
+        for (String regExp : regExps) {
+            CompactNFA nfa = patternProcessor.createCompactNFA(new Pattern("p", regExp, 0));
+            java.util.regex.Pattern expected = java.util.regex.Pattern.compile(regExp);
+            for (int i = 0; i < 500; i++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(9);
+                for (int j = 0; j < length; j++) {
+                    sb.append("abc012x".charAt(random.nextInt(random.nextBoolean() ? 3 : 7)));
+                }
+                String input = sb.toString();
+                Assert.assertEquals(regExp + " " + input, expected.matcher(input).matches(), accepts(nfa, input));
+            }
+        }
+    }
+
+    //构建a{1000}的紧凑NFA只分配数组，分配的内存少于同一个NFA的对象图
+    @Test
+    public void compactNFAAllocation() throws Exception {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threadMXBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocation = (com.sun.management.ThreadMXBean) threadMXBean;
+        Assume.assumeTrue(allocation.isThreadAllocatedMemorySupported() && allocation.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+        Pattern pattern = new Pattern("a1000", "a{1000}", 0);
+
+        long compactBytes = Long.MAX_VALUE;
+        long graphBytes = Long.MAX_VALUE;
+        CompactNFA nfa = null;
+        //多次测量取最小值，排除类加载和编译的分配
+        for (int i = 0; i < 20; i++) {
+            long begin = allocation.getThreadAllocatedBytes(thread);
+            nfa = patternProcessor.createCompactNFA(pattern);
+            long middle = allocation.getThreadAllocatedBytes(thread);
+            NFA graph = new NFA(nfa, 0);
+            long end = allocation.getThreadAllocatedBytes(thread);
+            compactBytes = Math.min(compactBytes, middle - begin);
+            graphBytes = Math.min(graphBytes, end - middle);
+            Assert.assertEquals(1001, graph.getStates().size());
+        }
+        Assert.assertEquals(1001, nfa.getStateCount());
+        Assert.assertEquals(1000, nfa.getLabeledTargets().length);
+        Assert.assertTrue(accepts(nfa, String.join("", java.util.Collections.nCopies(1000, "a"))));
+        System.out.println("紧凑NFA: " + compactBytes + "字节，对象图: " + graphBytes + "字节");
+        Assert.assertTrue(compactBytes + " >= " + graphBytes, compactBytes < graphBytes);
+    }
+
+    /**
+     * 在紧凑NFA上模拟，判断是否接受整个输入
+     */
+    private boolean accepts(CompactNFA nfa, String input) {
+        BitSet current = new BitSet();
+        current.set(0);
+        for (int i = 0; ; i++) {
+            //求epsilon闭包
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int state = current.nextSetBit(0); state >= 0; state = current.nextSetBit(state + 1)) {
+                    for (int j = nfa.getEpsilonOffsets()[state]; j < nfa.getEpsilonOffsets()[state + 1]; j++) {
+                        if (!current.get(nfa.getEpsilonTargets()[j])) {
+                            current.set(nfa.getEpsilonTargets()[j]);
+                            changed = true;
+                        }
+                    }
+                }
+            }
+            if (i == input.length()) break;
+            BitSet next = new BitSet();
+            for (int state = current.nextSetBit(0); state >= 0; state = current.nextSetBit(state + 1)) {
+                for (int j = nfa.getLabeledOffsets()[state]; j < nfa.getLabeledOffsets()[state + 1]; j++) {
+                    if (nfa.getLabels()[j] == input.charAt(i)) next.set(nfa.getLabeledTargets()[j]);
+                }
+            }
+            current = next;
+        }
+        return current.get(nfa.getAcceptStates()[0]);
+    }
 }
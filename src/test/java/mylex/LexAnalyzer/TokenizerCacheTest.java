@@ -0,0 +1,96 @@
+package mylex.LexAnalyzer;
+
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Pattern;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class TokenizerCacheTest {
+
+    Path dir;
+    List<Pattern> patterns;
+    TokenizerCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mylex");
+        patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("ws", " +", 2));
+        cache = new TokenizerCache(dir.resolve("cache"));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    //第一次编译后写入缓存，之后直接从缓存加载
+    @Test
+    public void getTable() throws Exception {
+        TransitionTable compiled = cache.getTable(patterns);
+        List<Path> files = listCache();
+        Assert.assertEquals(1, files.size());
+        Assert.assertTrue(files.get(0).toString().endsWith(TokenizerCache.key(patterns) + ".mlex"));
+
+        TransitionTable loaded = new TokenizerCache(dir.resolve("cache")).getTable(patterns);
+        Assert.assertNotSame(compiled, loaded);
+        Assert.assertArrayEquals(compiled.getTransitions(), loaded.getTransitions());
+        Assert.assertEquals(3, cache.createTokenizer(patterns).getTokens("if iff").size());
+    }
+
+    //名字、正则表达式或优先级不同时键不同
+    @Test
+    public void key() throws Exception {
+        List<Pattern> changed = new ArrayList<>(patterns);
+        changed.set(2, new Pattern("ws", " +", 3));
+        Assert.assertNotEquals(TokenizerCache.key(patterns), TokenizerCache.key(changed));
+        Assert.assertEquals(TokenizerCache.key(patterns), TokenizerCache.key(new ArrayList<>(patterns)));
+    }
+
+    //缓存文件损坏时重新编译并覆盖
+    @Test
+    public void corrupted() throws Exception {
+        cache.getTable(patterns);
+        Path file = listCache().get(0);
+        Files.write(file, new byte[]{1, 2, 3});
+
+        Assert.assertEquals(3, cache.createTokenizer(patterns).getTokens("if iff").size());
+        Assert.assertTrue(Files.size(file) > 3);
+        Assert.assertEquals(1, listCache().size());
+    }
+
+    //缓存文件的结构完整但数组中的值越界时，同样重新编译并覆盖，而不是在扫描时出错
+    @Test
+    public void corruptedContent() throws Exception {
+        cache.getTable(patterns);
+        Path file = listCache().get(0);
+        byte[] original = Files.readAllBytes(file);
+        byte[] corrupted = original.clone();
+        ByteBuffer.wrap(corrupted).putInt(corrupted.length - 4, 0x7F7F7F7F);
+        Files.write(file, corrupted);
+
+        Assert.assertEquals(3, new TokenizerCache(dir.resolve("cache")).createTokenizer(patterns).getTokens("if iff").size());
+        Assert.assertArrayEquals(original, Files.readAllBytes(file));
+    }
+
+    private List<Path> listCache() throws Exception {
+        try (Stream<Path> paths = Files.list(dir.resolve("cache"))) {
+            return paths.collect(Collectors.toList());
+        }
+    }
+}
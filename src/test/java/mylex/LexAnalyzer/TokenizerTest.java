@@ -6,6 +6,7 @@ import mylex.LexAnalyzer.nfa.NFA;
 import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
 import mylex.vo.Pattern;
 import mylex.vo.Token;
+import mylex.vo.TokenTypeTable;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,6 +45,73 @@ public class TokenizerTest {
         Token second = tokens.get(1);
         Assert.assertEquals("if", first.getName());
         Assert.assertEquals("else", second.getName());
+        //名字由类型编号从Pattern构成的类型表中查出
+        Assert.assertEquals(0, first.getPatternID());
+        Assert.assertEquals(1, second.getPatternID());
+        Assert.assertEquals(4, second.length());
     }
 
-}
\ No newline at end of file
+    //测试合并后的DFA，最长匹配且相同长度时按优先级选择Pattern
+    @Test
+    public void getTokensByCombinedDFA() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[fi]+", 1));
+        patterns.add(new Pattern("ws", " +", 2));
+        Tokenizer combinedTokenizer = new LexAnalyzer().createTokenizer(patterns);
+
+        List<Token> tokens = combinedTokenizer.getTokens("if iff  i");
+        Assert.assertEquals(5, tokens.size());
+        Assert.assertEquals("if", tokens.get(0).getName());
+        Assert.assertEquals("ws", tokens.get(1).getName());
+        Assert.assertEquals("id", tokens.get(2).getName());
+        Assert.assertEquals("iff", tokens.get(2).getValue());
+        Assert.assertEquals("  ", tokens.get(3).getValue());
+        Assert.assertEquals("id", tokens.get(4).getName());
+    }
+
+    //合并后的DFA的类型表按声明的顺序包含所有Pattern，被其它Pattern遮盖、没有接受状态的Pattern也在其中
+    @Test
+    public void combinedDFATypeTable() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("id", "[fi]+", 0));
+        patterns.add(new Pattern("if", "if", 1));
+        patterns.add(new Pattern("ws", " +", 2));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA combinedDFA = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+
+        List<Token> tokens = new Tokenizer(combinedDFA, patterns).getTokens("if fi");
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertEquals("id", tokens.get(0).getName());
+        Assert.assertEquals(0, tokens.get(0).getPatternID());
+        Assert.assertEquals(2, tokens.get(1).getPatternID());
+        TokenTypeTable typeTable = tokens.get(0).getTypeTable();
+        Assert.assertEquals(3, typeTable.size());
+        Assert.assertEquals("if", typeTable.getName(1));
+    }
+
+    //标记为skip的Pattern匹配的词素在两种DFA上都不输出
+    @Test
+    public void skip() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[fi]+", 1));
+        patterns.add(new Pattern("ws", " +", 2, true));
+
+        List<DFA> skipDFAList = new ArrayList<>();
+        for (NFA nfa : new PatternProcessor(patterns).combinePatterns()) {
+            skipDFAList.add(new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA());
+        }
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA combinedDFA = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+
+        for (Tokenizer skipTokenizer : new Tokenizer[]{new Tokenizer(skipDFAList), new Tokenizer(combinedDFA, patterns)}) {
+            List<Token> tokens = skipTokenizer.getTokens("if  iff ");
+            Assert.assertEquals(2, tokens.size());
+            Assert.assertEquals("if", tokens.get(0).getName());
+            Assert.assertEquals("id", tokens.get(1).getName());
+            Assert.assertEquals("iff", tokens.get(1).getValue());
+        }
+    }
+
+}
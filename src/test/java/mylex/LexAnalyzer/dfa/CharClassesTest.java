@@ -0,0 +1,55 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.LexAnalyzer.nfa.NFA;
+import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
+import mylex.vo.Pattern;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CharClassesTest {
+
+    NFA nfa;
+    CharClasses charClasses;
+
+    @Before
+    public void setUp() {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]([a-z0-9])*", 1));
+        patterns.add(new Pattern("number", "[0-9]+", 2));
+        nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        charClasses = new CharClasses(nfa);
+    }
+
+    //关键字中的字符单独成类，其余字母同属一类，数字同属一类
+    @Test
+    public void classOf() throws Exception {
+        Assert.assertEquals(charClasses.classOf('a'), charClasses.classOf('z'));
+        Assert.assertEquals(charClasses.classOf('0'), charClasses.classOf('9'));
+        Assert.assertNotEquals(charClasses.classOf('a'), charClasses.classOf('i'));
+        Assert.assertNotEquals(charClasses.classOf('i'), charClasses.classOf('f'));
+        Assert.assertNotEquals(charClasses.classOf('a'), charClasses.classOf('0'));
+        Assert.assertEquals(0, charClasses.classOf('A'));
+        Assert.assertEquals(0, charClasses.classOf('中'));
+
+        //等价类0，i，f，其余字母，数字
+        Assert.assertEquals(5, charClasses.getClassCount());
+        Assert.assertEquals(4, charClasses.getRepresentatives().size());
+    }
+
+    //DFA以等价类的代表字符为边，任意字符都能通过代表字符移动
+    @Test
+    public void move() throws Exception {
+        DFA dfa = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+        DFAState state = dfa.move(dfa.getStartState(), 'q');
+        Assert.assertEquals("id", state.getPattern().name);
+        state = dfa.move(state, '7');
+        Assert.assertEquals("id", state.getPattern().name);
+        Assert.assertNull(dfa.move(state, '#'));
+        Assert.assertTrue(state.getAlphabet().size() <= charClasses.getRepresentatives().size());
+    }
+}
@@ -1,8 +1,11 @@
 package mylex.LexAnalyzer.dfa;
 
+import mylex.LexAnalyzer.CompiledTokenizer;
 import mylex.LexAnalyzer.nfa.NFA;
 import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
 import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -36,4 +39,44 @@ public class DFAOptimizerTest {
             newDFA.printDFA();
         }
     }
-}
\ No newline at end of file
+
+    //(a|b)*abb的最简DFA有4个状态
+    @Test
+    public void minimalStateCount() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("abb", "(a|b)*abb", 0));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA dfa = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+        Assert.assertEquals(4, dfa.getStates().size());
+        Assert.assertEquals(1, dfa.getEndStates().size());
+    }
+
+    //数千个状态的DFA也能很快最小化，最小化前后切分结果相同
+    @Test
+    public void manyStates() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            patterns.add(new Pattern("kw" + i, "k" + Integer.toString(i, 36) + "x", 0));
+        }
+        patterns.add(new Pattern("id", "[a-z0-9]+", 1));
+        patterns.add(new Pattern("ws", " +", 1));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA dfa = new DFA(nfa).Dtran();
+        int stateCount = dfa.getStates().size();
+        Assert.assertTrue(stateCount > 3000);
+
+        String input = "kax k8bx kax1 k0x k2bbx xyz";
+        List<Token> expected = new CompiledTokenizer(new TransitionTable(dfa, patterns)).getTokens(input);
+        DFA optimizedDFA = new DFAOptimizer(dfa).constructOptimizedDFA();
+        Assert.assertTrue(optimizedDFA.getStates().size() <= stateCount);
+
+        List<Token> tokens = new CompiledTokenizer(new TransitionTable(optimizedDFA, patterns)).getTokens(input);
+        Assert.assertEquals(expected.size(), tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(expected.get(i).getName(), tokens.get(i).getName());
+            Assert.assertEquals(expected.get(i).getValue(), tokens.get(i).getValue());
+        }
+        Assert.assertEquals("kw10", tokens.get(0).getName());
+        Assert.assertEquals("kw2999", tokens.get(8).getName());
+    }
+}
@@ -1,13 +1,24 @@
 package mylex.LexAnalyzer.dfa;
 
+import mylex.LexAnalyzer.CompiledTokenizer;
+import mylex.LexAnalyzer.nfa.CompactNFA;
 import mylex.LexAnalyzer.nfa.NFA;
+import mylex.LexAnalyzer.nfa.NFAEdge;
+import mylex.LexAnalyzer.nfa.NFAState;
 import mylex.LexAnalyzer.patternProcessor.PatternProcessor;
 import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class DFATest {
 
@@ -39,4 +50,142 @@ public class DFATest {
         }
     }
 
-}
\ No newline at end of file
+    //上千个NFA状态的合并NFA也能构造出DFA，每个接受状态接受优先级最高的Pattern
+    @Test
+    public void manyPatterns() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            patterns.add(new Pattern("kw" + i, "k" + Integer.toString(i, 36) + "x", 0));
+        }
+        patterns.add(new Pattern("id", "[a-z0-9]+", 1));
+        patterns.add(new Pattern("ws", " +", 1));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        Assert.assertTrue(nfa.getStates().size() > 1000);
+
+        DFA dfa = new DFAOptimizer(new DFA(nfa).Dtran()).constructOptimizedDFA();
+        List<Token> tokens = new CompiledTokenizer(new TransitionTable(dfa, patterns)).getTokens("kax k8bx kax1 k0x");
+        Assert.assertEquals("kw10", tokens.get(0).getName());
+        Assert.assertEquals("kw299", tokens.get(2).getName());
+        Assert.assertEquals("id", tokens.get(4).getName());
+        Assert.assertEquals("kw0", tokens.get(6).getName());
+    }
+
+    //epsilon边较多的Pattern，按预先求出的epsilon闭包构造的DFA切分结果正确
+    @Test
+    public void epsilonClosure() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("r", "(a|b)*c{2,5}", 0));
+        patterns.add(new Pattern("c", "c", 1));
+        patterns.add(new Pattern("ab", "(a|b)+", 1));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        DFA dfa = new DFA(nfa).Dtran();
+
+        List<Token> tokens = new CompiledTokenizer(new TransitionTable(dfa, patterns)).getTokens("abccccbabccab");
+        Assert.assertEquals(3, tokens.size());
+        Assert.assertEquals("abcccc", tokens.get(0).getValue());
+        Assert.assertEquals("babcc", tokens.get(1).getValue());
+        Assert.assertEquals("r", tokens.get(1).getName());
+        Assert.assertEquals("ab", tokens.get(2).getName());
+    }
+
+    //紧凑表示不保存到自身的epsilon边，由紧凑表示构造的DFA与由NFA构造的DFA切分结果相同
+    @Test
+    public void compactNFA() throws Exception {
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("ws", " +", 1));
+        patterns.add(new Pattern("num", "(0|1)(0|1)*(21)?", 1));
+        NFA nfa = NFA.combine(new PatternProcessor(patterns).combinePatterns());
+        CompactNFA compactNFA = new CompactNFA(nfa);
+        Assert.assertEquals(nfa.getStates().size(), compactNFA.getStateCount());
+        Assert.assertEquals(patterns.size(), compactNFA.getAcceptStates().length);
+
+        //边数与对象图中的边数一致，只少了到自身的epsilon边
+        int epsilonCount = 0;
+        int labeledCount = 0;
+        for (NFAState state : nfa.getStates()) {
+            for (NFAEdge edge : state.getAdjacentcentList()) {
+                if (edge.getLabel() != NFA.EPSILON) labeledCount++;
+                else if (!edge.getDestState().equals(state)) epsilonCount++;
+            }
+        }
+        Assert.assertEquals(epsilonCount, compactNFA.getEpsilonTargets().length);
+        Assert.assertEquals(labeledCount, compactNFA.getLabeledTargets().length);
+
+        int[] epsilonOffsets = compactNFA.getEpsilonOffsets();
+        int[] epsilonTargets = compactNFA.getEpsilonTargets();
+        for (int state = 0; state < compactNFA.getStateCount(); state++) {
+            for (int i = epsilonOffsets[state]; i < epsilonOffsets[state + 1]; i++) {
+                Assert.assertNotEquals(state, epsilonTargets[i]);
+            }
+        }
+
+        //分别在对象图和数组上模拟NFA，两者到达的接受状态对应的Pattern应相同
+        String[] inputs = {"", "i", "if", "ifa", "a", "  ", "0", "01", "0121", "12", "12121", "2", "i f"};
+        for (String input : inputs) {
+            Set<NFAState> current = nfa.epsilonClosureStart();
+            for (char c : input.toCharArray()) {
+                current = nfa.epsilonClosureOther(nfa.move(current, c));
+            }
+            Set<String> expected = new HashSet<>();
+            for (NFAState state : current) {
+                if (nfa.getEndStatePatterns().containsKey(state)) expected.add(nfa.getEndStatePatterns().get(state).name);
+            }
+            Assert.assertEquals(input, expected, acceptedByCompactNFA(compactNFA, input));
+        }
+
+        Assert.assertEquals(new HashSet<>(Arrays.asList("if", "id")), acceptedByCompactNFA(compactNFA, "if"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("num")), acceptedByCompactNFA(compactNFA, "0121"));
+        Assert.assertTrue(acceptedByCompactNFA(compactNFA, "i f").isEmpty());
+
+        //构造DFA后的词法分析结果
+        List<Token> tokens = new CompiledTokenizer(new TransitionTable(new DFA(compactNFA).Dtran(), patterns)).getTokens("if ifa 0121");
+        String[] names = {"if", "ws", "id", "ws", "num"};
+        String[] values = {"if", " ", "ifa", " ", "0121"};
+        Assert.assertEquals(names.length, tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            Assert.assertEquals(names[i], tokens.get(i).getName());
+            Assert.assertEquals(values[i], tokens.get(i).getValue());
+        }
+    }
+
+    /**
+     * 直接在CompactNFA的数组上模拟，返回读完输入后到达的接受状态对应的Pattern名
+     */
+    private Set<String> acceptedByCompactNFA(CompactNFA compactNFA, String input) {
+        int[] epsilonOffsets = compactNFA.getEpsilonOffsets();
+        int[] epsilonTargets = compactNFA.getEpsilonTargets();
+        int[] labeledOffsets = compactNFA.getLabeledOffsets();
+        int[] labeledTargets = compactNFA.getLabeledTargets();
+        char[] labels = compactNFA.getLabels();
+
+        Set<Integer> current = new HashSet<>();
+        current.add(0);
+        for (int i = 0; i <= input.length(); i++) {
+            //求epsilon闭包
+            Deque<Integer> stack = new ArrayDeque<>(current);
+            while (!stack.isEmpty()) {
+                int state = stack.pop();
+                for (int j = epsilonOffsets[state]; j < epsilonOffsets[state + 1]; j++) {
+                    if (current.add(epsilonTargets[j])) stack.push(epsilonTargets[j]);
+                }
+            }
+            if (i == input.length()) break;
+            Set<Integer> next = new HashSet<>();
+            for (int state : current) {
+                for (int j = labeledOffsets[state]; j < labeledOffsets[state + 1]; j++) {
+                    if (labels[j] == input.charAt(i)) next.add(labeledTargets[j]);
+                }
+            }
+            current = next;
+        }
+
+        Set<String> accepted = new HashSet<>();
+        int[] acceptStates = compactNFA.getAcceptStates();
+        for (int i = 0; i < acceptStates.length; i++) {
+            if (current.contains(acceptStates[i])) accepted.add(compactNFA.getAcceptPatterns()[i].name);
+        }
+        return accepted;
+    }
+}
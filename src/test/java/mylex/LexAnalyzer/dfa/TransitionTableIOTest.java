@@ -0,0 +1,100 @@
+package mylex.LexAnalyzer.dfa;
+
+import mylex.LexAnalyzer.CompiledTokenizer;
+import mylex.LexAnalyzer.LexAnalyzer;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransitionTableIOTest {
+
+    Path file;
+    TransitionTable table;
+
+    @Before
+    public void setUp() throws Exception {
+        file = Files.createTempFile("mylex", ".bin");
+
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("LE", "<=", 2));
+        patterns.add(new Pattern("ws", " +", 3));
+        table = new LexAnalyzer().compile(patterns);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(file);
+    }
+
+    //加载后的转换表与写入前相同，可以直接用于切分
+    @Test
+    public void writeAndRead() throws Exception {
+        TransitionTableIO.write(table, file);
+        TransitionTable loaded = TransitionTableIO.read(file);
+
+        Assert.assertArrayEquals(table.getCharClasses(), loaded.getCharClasses());
+        Assert.assertArrayEquals(table.getTransitions(), loaded.getTransitions());
+        Assert.assertArrayEquals(table.getAcceptPatterns(), loaded.getAcceptPatterns());
+        Assert.assertArrayEquals(table.getSkipPatterns(), loaded.getSkipPatterns());
+        Assert.assertEquals(table.getClassCount(), loaded.getClassCount());
+        Assert.assertEquals("[a-z]+", loaded.getPatterns().get(1).regularExpression);
+        Assert.assertEquals(2, loaded.getPatterns().get(2).precedence);
+
+        List<Token> tokens = new CompiledTokenizer(loaded).getTokens("if iff <=");
+        Assert.assertEquals(5, tokens.size());
+        Assert.assertEquals("id", tokens.get(2).getName());
+        Assert.assertEquals("LE", tokens.get(4).getName());
+    }
+
+    //不是转换表文件或文件不完整时抛出IOException
+    @Test(expected = IOException.class)
+    public void readInvalid() throws Exception {
+        Files.write(file, new byte[]{'M', 'L', 'E', 'X', 0, 0, 0});
+        TransitionTableIO.read(file);
+    }
+
+    //文件中的个数、长度和数组中的值损坏时抛出IOException，而不是其它异常或在扫描时才越界
+    @Test
+    public void readCorrupted() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TransitionTableIO.write(table, out);
+        byte[] bytes = out.toByteArray();
+        int arraysLength = 4 * (table.getCharClasses().length + table.getTransitions().length + table.getStateCount());
+        int stateCountPosition = bytes.length - arraysLength - 4;
+
+        //Pattern个数为负数，或第一个字符串的长度为负数
+        assertCorrupted(bytes, 8, -1);
+        assertCorrupted(bytes, 12, -5);
+        //状态数过大，状态数与列数的乘积溢出
+        assertCorrupted(bytes, stateCountPosition, Integer.MAX_VALUE);
+        assertCorrupted(bytes, stateCountPosition - 4, 1 << 20);
+        //转换的目的状态和接受的Pattern编号越界
+        assertCorrupted(bytes, bytes.length - 4 * table.getStateCount() - 4, table.getStateCount());
+        assertCorrupted(bytes, bytes.length - 4, table.getPatterns().size());
+        assertCorrupted(bytes, bytes.length - 4, -2);
+    }
+
+    private void assertCorrupted(byte[] bytes, int position, int value) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.clone());
+        buffer.putInt(position, value);
+        try {
+            TransitionTableIO.read(buffer);
+            Assert.fail("损坏的转换表没有被发现：位置" + position);
+        } catch (IOException e) {
+            //损坏的转换表应抛出IOException
+        }
+    }
+}
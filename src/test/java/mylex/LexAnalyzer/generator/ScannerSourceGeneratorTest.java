@@ -0,0 +1,106 @@
+package mylex.LexAnalyzer.generator;
+
+import mylex.LexAnalyzer.CompiledTokenizer;
+import mylex.LexAnalyzer.LexAnalyzer;
+import mylex.LexAnalyzer.dfa.TransitionTable;
+import mylex.vo.Pattern;
+import mylex.vo.Token;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+public class ScannerSourceGeneratorTest {
+
+    private static final String LONG_KEYWORD = String.join("", Collections.nCopies(300, "b"));
+
+    Path dir;
+
+    CompiledTokenizer compiledTokenizer;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("mylex");
+
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("if", "if", 0));
+        patterns.add(new Pattern("id", "[a-z]+", 1));
+        patterns.add(new Pattern("词", "~~", 1));
+        patterns.add(new Pattern("LE", "<=", 2));
+        patterns.add(new Pattern("\"eq\\\\", "=", 2));
+        patterns.add(new Pattern("ws", "( |\n)+", 3));
+        //超过255个状态，表项中会出现需要\\u转义的字符
+        patterns.add(new Pattern("long", LONG_KEYWORD, 0));
+        compiledTokenizer = (CompiledTokenizer) new LexAnalyzer().createTokenizer(patterns);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    //生成的类编译后切分的结果应与CompiledTokenizer相同
+    @Test
+    public void generate() throws Exception {
+        TransitionTable table = compiledTokenizer.getTable();
+        Path source = dir.resolve("gen/GeneratedScanner.java");
+        new ScannerSourceGenerator(table, "gen", "GeneratedScanner").generate(source);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assert.assertEquals(0, compiler.run(null, null, null, "-encoding", "UTF-8", "-d", dir.toString(), source.toString()));
+
+        String input = "if iff\n~~ <= =x  " + LONG_KEYWORD + " " + LONG_KEYWORD + "b";
+        List<Token> expected = compiledTokenizer.getTokens(input);
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{dir.toUri().toURL()})) {
+            Class<?> scannerClass = loader.loadClass("gen.GeneratedScanner");
+            Object scanner = scannerClass.getConstructor(CharSequence.class).newInstance(input);
+            Method nextToken = scannerClass.getMethod("nextToken");
+
+            for (Token expectedToken : expected) {
+                Object token = nextToken.invoke(scanner);
+                Object type = token.getClass().getMethod("getType").invoke(token);
+                Assert.assertEquals(expectedToken.getName(), type.getClass().getMethod("getPatternName").invoke(type));
+                Assert.assertEquals(expectedToken.getValue(), token.getClass().getMethod("getValue").invoke(token));
+            }
+            Assert.assertNull(nextToken.invoke(scanner));
+        }
+    }
+
+    //状态编号加1后无法用一个字符保存时拒绝生成，而不是生成错误的表
+    @Test
+    public void tooManyStates() throws Exception {
+        int stateCount = Character.MAX_VALUE;
+        int[] transitions = new int[stateCount];
+        Arrays.fill(transitions, TransitionTable.DEAD_STATE);
+        int[] acceptPatterns = new int[stateCount];
+        Arrays.fill(acceptPatterns, TransitionTable.NO_PATTERN);
+        acceptPatterns[stateCount - 1] = 0;
+        int[] charClasses = new int['a' + 1];
+        List<Pattern> patterns = new ArrayList<>();
+        patterns.add(new Pattern("a", "a", 0));
+        TransitionTable table = new TransitionTable(charClasses, 1, transitions, acceptPatterns, patterns);
+        try {
+            new ScannerSourceGenerator(table, "gen", "GeneratedScanner");
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Assert.assertTrue(e.getMessage().contains(String.valueOf(stateCount)));
+        }
+    }
+}
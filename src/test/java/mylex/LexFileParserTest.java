@@ -0,0 +1,30 @@
+package mylex;
+
+import mylex.vo.Pattern;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+public class LexFileParserTest {
+
+    //名称和pattern之间的skip标志被解析为跳过该模式
+    @Test
+    public void getPatterns() throws Exception {
+        String lFile = "name:IF        pattern:if\n"
+                + "name:WS  skip  pattern:( |\\n)+\n"
+                + "name:ID        pattern:skip[a-z]*\n";
+        List<Pattern> patterns = new LexFileParser().getPatterns(new BufferedReader(new StringReader(lFile)));
+
+        Assert.assertEquals(3, patterns.size());
+        Assert.assertFalse(patterns.get(0).skip);
+        Assert.assertTrue(patterns.get(1).skip);
+        Assert.assertEquals("WS", patterns.get(1).name);
+        Assert.assertEquals("( |\\n)+", patterns.get(1).regularExpression);
+        Assert.assertEquals(1, patterns.get(1).precedence);
+        Assert.assertFalse(patterns.get(2).skip);
+        Assert.assertEquals("skip[a-z]*", patterns.get(2).regularExpression);
+    }
+}